@@ -0,0 +1,152 @@
+package com.gateway.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Blocking client for the endpoints the load scenarios drive. Every call returns the status
+ * and parsed body; non-2xx responses are returned, not thrown, so scenarios can count them.
+ */
+class GatewayClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final String apiKey;
+    private final String apiSecret;
+
+    GatewayClient(String baseUrl, String apiKey, String apiSecret) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+        this.apiSecret = apiSecret;
+    }
+
+    record Response(int status, JsonNode body) {
+        boolean ok() {
+            return status >= 200 && status < 300;
+        }
+
+        String text(String field) {
+            JsonNode value = body == null ? null : body.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+    }
+
+    record Streamed(int status, long bytes, long lines) {
+    }
+
+    Response createOrder(int amount) throws IOException, InterruptedException {
+        return post("/api/v1/orders", "{\"amount\":" + amount + ",\"currency\":\"INR\"}");
+    }
+
+    Response createPayment(String orderId, String method) throws IOException, InterruptedException {
+        String body = "upi".equals(method)
+                ? "{\"order_id\":\"" + orderId + "\",\"method\":\"upi\",\"vpa\":\"bench@okhdfcbank\"}"
+                : "{\"order_id\":\"" + orderId + "\",\"method\":\"card\",\"card\":{\"number\":\"4111111111111111\","
+                        + "\"expiry_month\":\"12\",\"expiry_year\":\"2099\",\"cvv\":\"123\",\"holder_name\":\"Bench\"}}";
+        return post("/api/v1/payments", body);
+    }
+
+    Response getPayment(String paymentId, long waitSeconds) throws IOException, InterruptedException {
+        return get("/api/v1/payments/" + paymentId + "?wait=" + waitSeconds + "s", Duration.ofSeconds(waitSeconds + 10));
+    }
+
+    Response getOrder(String orderId) throws IOException, InterruptedException {
+        return get("/api/v1/orders/" + orderId, Duration.ofSeconds(10));
+    }
+
+    Response listPayments(int limit, String cursor) throws IOException, InterruptedException {
+        String path = "/api/v1/payments?limit=" + limit;
+        if (cursor != null) {
+            path += "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8);
+        }
+        return get(path, Duration.ofSeconds(10));
+    }
+
+    /**
+     * Streams an export to the end, counting bytes and lines without keeping them.
+     */
+    Streamed export(String format, String from, String to) throws IOException, InterruptedException {
+        HttpRequest request = authorized("/api/v1/payments/export?format=" + format
+                + "&from=" + URLEncoder.encode(from, StandardCharsets.UTF_8)
+                + "&to=" + URLEncoder.encode(to, StandardCharsets.UTF_8))
+                .timeout(Duration.ofHours(1))
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        long bytes = 0;
+        long lines = 0;
+        byte[] buffer = new byte[65536];
+        try (InputStream in = response.body()) {
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                bytes += n;
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+            }
+        }
+        return new Streamed(response.statusCode(), bytes, lines);
+    }
+
+    /**
+     * Sum of a Prometheus counter over all its series, or -1 if it is not exposed.
+     */
+    double scrape(String metric) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/prometheus"))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return -1;
+        }
+        double sum = -1;
+        for (String line : response.body().split("\n")) {
+            if (line.startsWith(metric) && (line.charAt(metric.length()) == ' ' || line.charAt(metric.length()) == '{')) {
+                sum = Math.max(sum, 0) + Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+            }
+        }
+        return sum;
+    }
+
+    private Response post(String path, String json) throws IOException, InterruptedException {
+        HttpRequest request = authorized(path)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return send(request);
+    }
+
+    private Response get(String path, Duration timeout) throws IOException, InterruptedException {
+        return send(authorized(path).timeout(timeout).GET().build());
+    }
+
+    private Response send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        byte[] body = response.body();
+        return new Response(response.statusCode(), body.length == 0 ? null : MAPPER.readTree(body));
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("X-Api-Key", apiKey)
+                .header("X-Api-Secret", apiSecret);
+    }
+}
@@ -0,0 +1,49 @@
+package com.gateway.bench;
+
+import com.gateway.services.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * All IDs come from one CAS'd sequence, so the contended case is the one that matters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    private IdGenerator idGenerator;
+
+    @Setup
+    public void setUp() {
+        idGenerator = new IdGenerator();
+        ReflectionTestUtils.setField(idGenerator, "configuredNodeId", "1");
+        idGenerator.init();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String paymentId() {
+        return idGenerator.nextPaymentId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String paymentIdContended() {
+        return idGenerator.nextPaymentId();
+    }
+}
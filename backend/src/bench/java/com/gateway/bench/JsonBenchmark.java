@@ -0,0 +1,124 @@
+package com.gateway.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gateway.dto.CreateOrderRequest;
+import com.gateway.dto.CreatePaymentRequest;
+import com.gateway.json.GatewayJsonModule;
+import com.gateway.models.Order;
+import com.gateway.models.Payment;
+import com.gateway.models.PaymentStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization through {@link GatewayJsonModule} against Jackson's reflective bean
+ * serializer producing the same field names, and request binding into the typed DTOs.
+ * Run with {@code -prof gc} for bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private static final byte[] PAYMENT_REQUEST = ("{\"order_id\":\"order_0Ab3Xk9LmN2pQr4s\",\"method\":\"card\","
+            + "\"card\":{\"number\":\"4111111111111111\",\"expiry_month\":\"12\",\"expiry_year\":\"2030\","
+            + "\"cvv\":\"123\",\"holder_name\":\"Jane Doe\"}}").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] ORDER_REQUEST = ("{\"amount\":50000,\"currency\":\"INR\",\"receipt\":\"receipt_123\","
+            + "\"notes\":{\"customer\":\"Jane Doe\",\"items\":[1,2,3]}}").getBytes(StandardCharsets.UTF_8);
+
+    private ObjectWriter gatewayPaymentWriter;
+    private ObjectWriter reflectionPaymentWriter;
+    private ObjectWriter gatewayOrderWriter;
+    private ObjectReader paymentRequestReader;
+    private ObjectReader orderRequestReader;
+    private Payment payment;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        // Built the way Spring Boot builds the application's mapper.
+        ObjectMapper gateway = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(new GatewayJsonModule())
+                .build();
+        ObjectMapper reflection = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .build();
+
+        gatewayPaymentWriter = gateway.writerFor(Payment.class);
+        reflectionPaymentWriter = reflection.writerFor(Payment.class);
+        gatewayOrderWriter = gateway.writerFor(Order.class);
+        paymentRequestReader = gateway.readerFor(CreatePaymentRequest.class);
+        orderRequestReader = gateway.readerFor(CreateOrderRequest.class);
+
+        LocalDateTime now = LocalDateTime.of(2026, 1, 15, 10, 30, 45, 123_000_000);
+        payment = new Payment();
+        payment.setId("pay_0Ab3Xk9LmN2pQr4s");
+        payment.setOrderId("order_0Ab3Xk9LmN2pQr4s");
+        payment.setMerchantId(UUID.fromString("550e8400-e29b-41d4-a716-446655440000"));
+        payment.setAmount(50000);
+        payment.setMethod("card");
+        payment.setStatus(PaymentStatus.SUCCESS);
+        payment.setCardNetwork("visa");
+        payment.setCardLast4("1111");
+        payment.setCreatedAt(now);
+        payment.setUpdatedAt(now);
+
+        order = new Order();
+        order.setId("order_0Ab3Xk9LmN2pQr4s");
+        order.setMerchantId(payment.getMerchantId());
+        order.setAmount(50000);
+        order.setReceipt("receipt_123");
+        order.setNotes("{\"customer\":\"Jane Doe\",\"items\":[1,2,3]}");
+        order.setCreatedAt(now);
+        order.setUpdatedAt(now);
+    }
+
+    @Benchmark
+    public byte[] serializePayment() throws IOException {
+        return gatewayPaymentWriter.writeValueAsBytes(payment);
+    }
+
+    @Benchmark
+    public byte[] serializePaymentReflective() throws IOException {
+        return reflectionPaymentWriter.writeValueAsBytes(payment);
+    }
+
+    @Benchmark
+    public byte[] serializeOrder() throws IOException {
+        return gatewayOrderWriter.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public CreatePaymentRequest parsePaymentRequest() throws IOException {
+        return paymentRequestReader.readValue(PAYMENT_REQUEST);
+    }
+
+    @Benchmark
+    public CreateOrderRequest parseOrderRequest() throws IOException {
+        return orderRequestReader.readValue(ORDER_REQUEST);
+    }
+}
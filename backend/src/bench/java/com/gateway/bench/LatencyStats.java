@@ -0,0 +1,90 @@
+package com.gateway.bench;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms per operation and response counts per operation and status. Recording is
+ * switched on after warm-up, so the report covers the measurement window only.
+ */
+class LatencyStats {
+
+    private final ConcurrentHashMap<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> responses = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private volatile boolean recording;
+
+    void start() {
+        recorders.values().forEach(Recorder::reset);
+        responses.clear();
+        counters.clear();
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+    }
+
+    void record(String operation, long nanos) {
+        if (recording) {
+            recorders.computeIfAbsent(operation, k -> new Recorder(3)).recordValue(nanos);
+        }
+    }
+
+    void response(String operation, int status) {
+        if (recording) {
+            responses.computeIfAbsent(operation + " " + status, k -> new LongAdder()).increment();
+        }
+    }
+
+    void count(String name, long delta) {
+        if (recording) {
+            counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+        }
+    }
+
+    long counter(String name) {
+        LongAdder adder = counters.get(name);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    Map<String, Object> report(double seconds) {
+        Map<String, Object> operations = new TreeMap<>();
+        recorders.forEach((operation, recorder) -> {
+            Histogram histogram = recorder.getIntervalHistogram();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", histogram.getTotalCount());
+            stats.put("throughput_per_s", round(histogram.getTotalCount() / seconds));
+            stats.put("mean_ms", millis(histogram.getMean()));
+            stats.put("p50_ms", millis(histogram.getValueAtPercentile(50)));
+            stats.put("p90_ms", millis(histogram.getValueAtPercentile(90)));
+            stats.put("p99_ms", millis(histogram.getValueAtPercentile(99)));
+            stats.put("p999_ms", millis(histogram.getValueAtPercentile(99.9)));
+            stats.put("max_ms", millis(histogram.getMaxValue()));
+            operations.put(operation, stats);
+        });
+        Map<String, Object> statuses = new TreeMap<>();
+        responses.forEach((key, count) -> statuses.put(key, count.sum()));
+        Map<String, Object> totals = new TreeMap<>();
+        counters.forEach((key, count) -> totals.put(key, count.sum()));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("operations", operations);
+        report.put("responses", statuses);
+        report.put("counters", totals);
+        return report;
+    }
+
+    private static double millis(double nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
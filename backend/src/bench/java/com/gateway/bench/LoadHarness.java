@@ -0,0 +1,394 @@
+package com.gateway.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load against a running gateway (see src/bench/run-load.sh).
+ *
+ * Scenarios:
+ * <ul>
+ *   <li>{@code checkout}: create order, create payment, long-poll the payment until settled</li>
+ *   <li>{@code contention}: several concurrent payments on one order, then checks that at most
+ *       one of them succeeded and that the order ended up paid whenever one did</li>
+ *   <li>{@code hammer}: every worker pays the same order at once, round after round, with the
+ *       same checks; {@code hammer_round} throughput is orders settled per second under the
+ *       worst-case contention on one order row</li>
+ *   <li>{@code list}: walks the payment list by cursor, {@code --pages} pages deep</li>
+ *   <li>{@code export}: streams the NDJSON export for {@code --from}/{@code --to}</li>
+ * </ul>
+ *
+ * Workers run closed-loop by default. With {@code --rate}, operations start on a fixed
+ * schedule and latency counts from the scheduled start, so a stalled server shows up in the
+ * percentiles instead of just slowing the load (coordinated omission).
+ *
+ * The report is JSON: latency percentiles and throughput per operation, response counts by
+ * status, and the server's allocation rate read from {@code /actuator/prometheus}.
+ */
+public class LoadHarness {
+
+    private static final String ALLOCATED_BYTES = "jvm_gc_memory_allocated_bytes_total";
+
+    private final Map<String, String> options;
+    private final GatewayClient client;
+    private final LatencyStats stats = new LatencyStats();
+    private final String scenario;
+    private final int concurrency;
+    private final double rate;
+    private final ExecutorService attemptPool = Executors.newCachedThreadPool();
+    private final AtomicLong scheduled = new AtomicLong();
+    private volatile long scheduleStart;
+    private volatile boolean running = true;
+
+    // hammer: all workers meet at the barrier, whose action checks the finished round and
+    // creates the order for the next one.
+    private final CyclicBarrier round;
+    private final AtomicInteger roundSuccesses = new AtomicInteger();
+    private volatile String roundOrderId;
+    private volatile long roundStart;
+
+    LoadHarness(Map<String, String> options) {
+        this.options = options;
+        this.client = new GatewayClient(option("base-url", "http://localhost:8080"),
+                option("api-key", "key_test_abc123"), option("api-secret", "secret_test_xyz789"));
+        this.scenario = option("scenario", "checkout");
+        this.concurrency = Integer.parseInt(option("concurrency", "export".equals(scenario) ? "1" : "64"));
+        this.rate = Double.parseDouble(option("rate", "0"));
+        this.round = new CyclicBarrier(concurrency, this::nextRound);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name value pairs, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        new LoadHarness(options).run();
+    }
+
+    void run() throws Exception {
+        long warmupSeconds = Long.parseLong(option("warmup", "10"));
+        long durationSeconds = Long.parseLong(option("duration", "60"));
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        scheduleStart = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(this::work);
+        }
+
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        double allocatedBefore = client.scrape(ALLOCATED_BYTES);
+        long start = System.nanoTime();
+        stats.start();
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        stats.stop();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double allocatedAfter = client.scrape(ALLOCATED_BYTES);
+
+        running = false;
+        workers.shutdown();
+        workers.awaitTermination(2, TimeUnit.MINUTES);
+        attemptPool.shutdown();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("scenario", scenario);
+        report.put("options", new TreeMap<>(options));
+        report.put("concurrency", concurrency);
+        report.put("rate_per_s", rate);
+        report.put("measured_seconds", LatencyStats.round(seconds));
+        report.putAll(stats.report(seconds));
+        report.put("server", serverReport(allocatedBefore, allocatedAfter, seconds));
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        String json = mapper.writeValueAsString(report);
+        System.out.println(json);
+        Path output = Path.of(option("output", "target/load-" + scenario + ".json"));
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        Files.writeString(output, json);
+    }
+
+    private Map<String, Object> serverReport(double before, double after, double seconds) {
+        Map<String, Object> server = new LinkedHashMap<>();
+        if (before < 0 || after < 0) {
+            server.put("allocated_bytes_per_s", null);
+            return server;
+        }
+        double allocated = after - before;
+        long iterations = stats.counter("iterations");
+        server.put("allocated_bytes_per_s", Math.round(allocated / seconds));
+        server.put("allocated_bytes_per_iteration", iterations == 0 ? null : Math.round(allocated / iterations));
+        return server;
+    }
+
+    private void work() {
+        while (running) {
+            long startedAt = awaitSlot();
+            try {
+                switch (scenario) {
+                    case "checkout" -> checkout(startedAt);
+                    case "contention" -> contention(startedAt);
+                    case "hammer" -> {
+                        if (!hammer()) {
+                            return;
+                        }
+                    }
+                    case "list" -> list(startedAt);
+                    case "export" -> export(startedAt);
+                    default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+                }
+                stats.count("iterations", 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                stats.count("io_errors", 1);
+            }
+        }
+    }
+
+    /**
+     * Closed loop: now. Open loop: sleeps until this worker's next scheduled start and returns
+     * that scheduled time, which may already be in the past when the server is behind.
+     */
+    private long awaitSlot() {
+        if (rate <= 0) {
+            return System.nanoTime();
+        }
+        long slot = scheduleStart + (long) (scheduled.getAndIncrement() * (1e9 / rate));
+        long delay = slot - System.nanoTime();
+        if (delay > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return slot;
+    }
+
+    private void checkout(long startedAt) throws IOException, InterruptedException {
+        String method = method();
+        GatewayClient.Response order = timed("create_order", startedAt, () -> client.createOrder(amount()));
+        if (!order.ok()) {
+            return;
+        }
+        long paymentStart = System.nanoTime();
+        GatewayClient.Response payment = timed("create_payment", paymentStart,
+                () -> client.createPayment(order.text("id"), method));
+        if (!payment.ok()) {
+            return;
+        }
+        long settleStart = System.nanoTime();
+        if (awaitTerminal(payment.text("id")) != null) {
+            long now = System.nanoTime();
+            stats.record("settle", now - settleStart);
+            stats.record("checkout", now - startedAt);
+        }
+    }
+
+    private void contention(long startedAt) throws IOException, InterruptedException {
+        int payments = Integer.parseInt(option("payments-per-order", "4"));
+        GatewayClient.Response order = timed("create_order", startedAt, () -> client.createOrder(amount()));
+        if (!order.ok()) {
+            return;
+        }
+        String orderId = order.text("id");
+        List<CompletableFuture<String>> attempts = new ArrayList<>(payments);
+        for (int i = 0; i < payments; i++) {
+            attempts.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    GatewayClient.Response payment = timed("create_payment", System.nanoTime(),
+                            () -> client.createPayment(orderId, method()));
+                    return payment.ok() ? awaitTerminal(payment.text("id")) : null;
+                } catch (IOException | InterruptedException e) {
+                    stats.count("io_errors", 1);
+                    return null;
+                }
+            }, attemptPool));
+        }
+        int successes = 0;
+        for (CompletableFuture<String> attempt : attempts) {
+            if ("success".equals(attempt.join())) {
+                successes++;
+            }
+        }
+        checkOrder(orderId, successes);
+    }
+
+    /**
+     * One worker's part in a hammer round: pay the round's order, wait for the outcome, then
+     * wait for the other workers. Returns false once the run is over.
+     */
+    private boolean hammer() throws IOException, InterruptedException {
+        if (!awaitRound()) {
+            return false;
+        }
+        String orderId = roundOrderId;
+        if (orderId != null) {
+            GatewayClient.Response payment = timed("create_payment", System.nanoTime(),
+                    () -> client.createPayment(orderId, method()));
+            if (payment.ok() && "success".equals(awaitTerminal(payment.text("id")))) {
+                roundSuccesses.incrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    private boolean awaitRound() throws InterruptedException {
+        if (!running) {
+            // Release the workers already waiting instead of letting them time out.
+            round.reset();
+            return false;
+        }
+        try {
+            round.await(Long.parseLong(option("wait", "30")) * 2, TimeUnit.SECONDS);
+            return true;
+        } catch (BrokenBarrierException | TimeoutException e) {
+            // Another worker stopped or gave up; the run is ending.
+            return false;
+        }
+    }
+
+    // Runs on the last worker to reach the barrier, while the others wait.
+    private void nextRound() {
+        String finished = roundOrderId;
+        if (finished != null) {
+            try {
+                checkOrder(finished, roundSuccesses.getAndSet(0));
+                stats.record("hammer_round", System.nanoTime() - roundStart);
+            } catch (IOException e) {
+                stats.count("io_errors", 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        roundStart = System.nanoTime();
+        try {
+            GatewayClient.Response order = timed("create_order", roundStart, () -> client.createOrder(amount()));
+            roundOrderId = order.ok() ? order.text("id") : null;
+        } catch (IOException e) {
+            stats.count("io_errors", 1);
+            roundOrderId = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            roundOrderId = null;
+        }
+    }
+
+    private void checkOrder(String orderId, int successes) throws IOException, InterruptedException {
+        if (successes > 1) {
+            // An order may be paid once; later payments on it must fail.
+            stats.count("invariant_violations", 1);
+            stats.count("double_successes", 1);
+        }
+        GatewayClient.Response settled = timed("get_order", System.nanoTime(), () -> client.getOrder(orderId));
+        if (settled.ok() && successes > 0 && !"paid".equals(settled.text("status"))) {
+            // A successful payment must always leave its order paid.
+            stats.count("invariant_violations", 1);
+        }
+        stats.count(successes > 0 ? "orders_paid" : "orders_unpaid", 1);
+    }
+
+    private void list(long startedAt) throws IOException, InterruptedException {
+        int pages = Integer.parseInt(option("pages", "10"));
+        int limit = Integer.parseInt(option("limit", "100"));
+        String cursor = null;
+        long pageStart = startedAt;
+        for (int page = 0; page < pages; page++) {
+            String current = cursor;
+            GatewayClient.Response response = timed(page == 0 ? "list_first_page" : "list_next_page", pageStart,
+                    () -> client.listPayments(limit, current));
+            if (!response.ok()) {
+                return;
+            }
+            cursor = response.text("next_cursor");
+            if (cursor == null) {
+                return;
+            }
+            pageStart = System.nanoTime();
+        }
+    }
+
+    private void export(long startedAt) throws IOException, InterruptedException {
+        String to = option("to", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        GatewayClient.Streamed export = client.export("ndjson", option("from", "2024-01-01T00:00:00"), to);
+        stats.record("export", System.nanoTime() - startedAt);
+        stats.response("export", export.status());
+        stats.count("export_bytes", export.bytes());
+        stats.count("export_rows", export.lines());
+    }
+
+    /**
+     * Long-polls until the payment leaves {@code processing}; returns its final status.
+     */
+    private String awaitTerminal(String paymentId) throws IOException, InterruptedException {
+        long waitSeconds = Long.parseLong(option("wait", "30"));
+        while (running) {
+            GatewayClient.Response response = timed("poll_payment", System.nanoTime(),
+                    () -> client.getPayment(paymentId, waitSeconds));
+            if (!response.ok()) {
+                return null;
+            }
+            String status = response.text("status");
+            if (!"processing".equals(status)) {
+                stats.count("settled_" + status, 1);
+                return status;
+            }
+        }
+        return null;
+    }
+
+    private GatewayClient.Response timed(String operation, long startedAt, Call call)
+            throws IOException, InterruptedException {
+        GatewayClient.Response response = call.execute();
+        stats.record(operation, System.nanoTime() - startedAt);
+        stats.response(operation, response.status());
+        return response;
+    }
+
+    private String method() {
+        String method = option("method", "mixed");
+        if ("mixed".equals(method)) {
+            return ThreadLocalRandom.current().nextBoolean() ? "upi" : "card";
+        }
+        return method;
+    }
+
+    private static int amount() {
+        return ThreadLocalRandom.current().nextInt(100, 1_000_000);
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        GatewayClient.Response execute() throws IOException, InterruptedException;
+    }
+}
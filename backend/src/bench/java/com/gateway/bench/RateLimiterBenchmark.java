@@ -0,0 +1,70 @@
+package com.gateway.bench;
+
+import com.gateway.ratelimit.AdaptiveConcurrencyLimiter;
+import com.gateway.ratelimit.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the API edge: one bucket shared by every thread (a single hot merchant),
+ * buckets spread over many keys, and the global concurrency limiter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class RateLimiterBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    // High enough that buckets never run dry and every call takes the allow path.
+    private static final RateLimiter.Limit LIMIT = new RateLimiter.Limit(1e9, 1_000_000);
+
+    private RateLimiter rateLimiter;
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rateLimiter = new RateLimiter(100_000);
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(1000, 20, 1000, TimeUnit.MILLISECONDS.toNanos(250));
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "payments.create key_live_" + i;
+        }
+    }
+
+    @Benchmark
+    public boolean hotKey() {
+        return rateLimiter.tryAcquire(keys[0], LIMIT).allowed();
+    }
+
+    @Benchmark
+    public boolean spreadKeys() {
+        return rateLimiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(KEYS)], LIMIT).allowed();
+    }
+
+    @Benchmark
+    public boolean concurrencyLimit() {
+        boolean acquired = concurrencyLimiter.tryAcquire();
+        if (acquired) {
+            concurrencyLimiter.release(1_000_000);
+        }
+        return acquired;
+    }
+}
@@ -0,0 +1,57 @@
+package com.gateway.bench;
+
+import com.gateway.services.ValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"4111111111111111", "4111 1111 1111 1111", "378282246310005", "4111111111111112"})
+    private String cardNumber;
+
+    @Param({"user.name_123@okhdfcbank"})
+    private String vpa;
+
+    private ValidationService validationService;
+
+    @Setup
+    public void setUp() {
+        validationService = new ValidationService();
+    }
+
+    @Benchmark
+    public String inspectCard() {
+        return validationService.inspectCard(cardNumber);
+    }
+
+    @Benchmark
+    public String detectCardNetwork() {
+        return validationService.detectCardNetwork(cardNumber);
+    }
+
+    @Benchmark
+    public boolean validateVpa() {
+        return validationService.validateVPA(vpa);
+    }
+
+    @Benchmark
+    public boolean validateCardExpiry() {
+        return validationService.validateCardExpiry("12", "30");
+    }
+}
@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+# Throughput cost of structured event logging under full load: runs the checkout scenario
+# with the event loggers off (gateway.audit and gateway.events at OFF), then with the
+# shipped configuration, ROUNDS times each alternating, and compares median checkout
+# throughput. Fails if logging costs more than MAX_LOSS_PCT (default 2) percent.
+#
+#   src/bench/logging-overhead.sh
+#   ROUNDS=5 LOAD_ARGS="--concurrency 128 --duration 120" src/bench/logging-overhead.sh
+#
+# Event output goes to target/load-server.log like the rest of the server's output; the
+# report is target/logging-overhead.json.
+set -euo pipefail
+cd "$(dirname "$0")/../.."
+
+ROUNDS=${ROUNDS:-3}
+MAX_LOSS_PCT=${MAX_LOSS_PCT:-2}
+LOAD_ARGS=${LOAD_ARGS:-"--concurrency 64 --duration 60"}
+OFF="--logging.level.gateway.audit=OFF --logging.level.gateway.events=OFF"
+
+# Checkout throughput from a load report (Jackson's indented output).
+throughput() {
+    awk '/"checkout" : \{/ { found = 1 } found && /"throughput_per_s"/ { gsub(/[ ,]/, "", $3); print $3; exit }' "$1"
+}
+
+median() {
+    tr ' ' '\n' | sort -g | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+off_runs=""
+on_runs=""
+for round in $(seq 1 "$ROUNDS"); do
+    for mode in off on; do
+        output=target/load-logging-$mode-$round.json
+        if [ "$mode" = off ]; then
+            GATEWAY_ARGS="$OFF" src/bench/run-load.sh --scenario checkout $LOAD_ARGS --output "$output" > /dev/null
+        else
+            src/bench/run-load.sh --scenario checkout $LOAD_ARGS --output "$output" > /dev/null
+        fi
+        value=$(throughput "$output")
+        echo "round $round, logging $mode: $value checkouts/s" >&2
+        if [ "$mode" = off ]; then
+            off_runs="$off_runs $value"
+        else
+            on_runs="$on_runs $value"
+        fi
+    done
+done
+off_runs=${off_runs# }
+on_runs=${on_runs# }
+
+off=$(echo "$off_runs" | median)
+on=$(echo "$on_runs" | median)
+loss=$(awk -v off="$off" -v on="$on" 'BEGIN { printf "%.2f", (off - on) * 100 / off }')
+cat > target/logging-overhead.json <<JSON
+{
+  "off_per_s": [${off_runs// /, }],
+  "on_per_s": [${on_runs// /, }],
+  "median_off_per_s": $off,
+  "median_on_per_s": $on,
+  "loss_pct": $loss,
+  "max_loss_pct": $MAX_LOSS_PCT
+}
+JSON
+cat target/logging-overhead.json
+awk -v loss="$loss" -v max="$MAX_LOSS_PCT" 'BEGIN { exit !(loss <= max) }' \
+    || { echo "logging costs ${loss}% of checkout throughput (limit ${MAX_LOSS_PCT}%)" >&2; exit 1; }
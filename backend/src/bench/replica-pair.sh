@@ -0,0 +1,125 @@
+#!/usr/bin/env bash
+# A local primary and streaming replica for trying read-replica routing, under
+# target/pg-replica (needs the Postgres server binaries on PATH: initdb, pg_ctl,
+# pg_basebackup).
+#
+#   src/bench/replica-pair.sh start     # primary on PRIMARY_PORT (5433), replica on REPLICA_PORT (5434)
+#   src/bench/replica-pair.sh verify    # starts the gateway against both and checks read-your-writes
+#   src/bench/replica-pair.sh stop
+#
+# APPLY_DELAY_MS (default 200) holds back replay on the replica so that reads right after a
+# write really do find it behind. verify creates ROUNDS orders and payments and reads each
+# back at once with the lookup caches off; any 404 fails it. It then reports how reads were
+# routed, from /actuator/prometheus. To load-test against the pair instead, pass the same
+# settings to run-load.sh:
+#
+#   SPRING_DATASOURCE_URL=jdbc:postgresql://localhost:5433/payment_gateway \
+#   DB_REPLICA_URLS=jdbc:postgresql://localhost:5434/payment_gateway \
+#   src/bench/run-load.sh --scenario list
+set -euo pipefail
+cd "$(dirname "$0")/../.."
+
+DIR=target/pg-replica
+PRIMARY_PORT=${PRIMARY_PORT:-5433}
+REPLICA_PORT=${REPLICA_PORT:-5434}
+APPLY_DELAY_MS=${APPLY_DELAY_MS:-200}
+PORT=${PORT:-8080}
+ROUNDS=${ROUNDS:-200}
+BASE=http://localhost:$PORT
+
+start() {
+    mkdir -p "$DIR"
+    local dir
+    dir=$(cd "$DIR" && pwd)
+    if [ ! -d "$dir/primary" ]; then
+        initdb -D "$dir/primary" -U postgres --auth=trust > "$dir/initdb.log"
+        cat >> "$dir/primary/postgresql.conf" <<CONF
+port = $PRIMARY_PORT
+listen_addresses = 'localhost'
+unix_socket_directories = '$dir'
+wal_level = replica
+max_wal_senders = 4
+CONF
+        pg_ctl -D "$dir/primary" -l "$dir/primary.log" -w start
+        createdb -h localhost -p "$PRIMARY_PORT" -U postgres payment_gateway
+        # -R writes standby.signal and primary_conninfo, so the copy starts as a streaming replica.
+        pg_basebackup -h localhost -p "$PRIMARY_PORT" -U postgres -D "$dir/replica" -R -X stream
+        cat >> "$dir/replica/postgresql.conf" <<CONF
+port = $REPLICA_PORT
+hot_standby_feedback = on
+recovery_min_apply_delay = '${APPLY_DELAY_MS}ms'
+CONF
+    else
+        pg_ctl -D "$dir/primary" -l "$dir/primary.log" -w start
+    fi
+    pg_ctl -D "$dir/replica" -l "$dir/replica.log" -w start
+    psql -h localhost -p "$PRIMARY_PORT" -U postgres -Atc \
+        "SELECT application_name || ' ' || state FROM pg_stat_replication"
+}
+
+stop() {
+    for node in replica primary; do
+        if [ -d "$DIR/$node" ]; then
+            pg_ctl -D "$DIR/$node" -m fast stop || true
+        fi
+    done
+}
+
+# Value of a Prometheus counter, summed over its series.
+metric() {
+    curl -s "$BASE/actuator/prometheus" | awk -v name="$1" 'index($0, name) == 1 { sum += $NF } END { print sum + 0 }'
+}
+
+verify() {
+    if [ -z "${SKIP_BUILD:-}" ]; then
+        mvn -B -q -DskipTests package
+    fi
+    java -jar target/payment-gateway-1.0.0.jar --server.port="$PORT" \
+        --spring.datasource.url="jdbc:postgresql://localhost:$PRIMARY_PORT/payment_gateway" \
+        --gateway.datasource.replicas="jdbc:postgresql://localhost:$REPLICA_PORT/payment_gateway" \
+        --gateway.ratelimit.enabled=false \
+        --gateway.cache.order-ttl-seconds=0 \
+        --gateway.cache.payment-processing-ttl-ms=0 \
+        --gateway.cache.payment-terminal-ttl-seconds=0 > "$DIR/gateway.log" 2>&1 &
+    SERVER=$!
+    trap 'kill $SERVER 2>/dev/null; wait $SERVER 2>/dev/null || true' EXIT
+
+    for _ in $(seq 1 120); do
+        if curl -sf "$BASE/health" > /dev/null; then
+            break
+        fi
+        sleep 1
+    done
+    curl -sf "$BASE/health" > /dev/null || { echo "gateway did not become healthy, see $DIR/gateway.log" >&2; exit 1; }
+    # Let the seeded merchant replicate and the first health checks run.
+    sleep 2
+
+    local auth=(-H 'X-Api-Key: key_test_abc123' -H 'X-Api-Secret: secret_test_xyz789' -H 'Content-Type: application/json')
+    local missing=0
+    for _ in $(seq 1 "$ROUNDS"); do
+        order=$(curl -s "${auth[@]}" -X POST "$BASE/api/v1/orders" -d '{"amount":50000,"currency":"INR"}' \
+            | sed -n 's/.*"id":"\([^"]*\)".*/\1/p')
+        status=$(curl -s -o /dev/null -w '%{http_code}' "${auth[@]}" "$BASE/api/v1/orders/$order")
+        [ "$status" = 200 ] || missing=$((missing + 1))
+        payment=$(curl -s "${auth[@]}" -X POST "$BASE/api/v1/payments" \
+            -d "{\"order_id\":\"$order\",\"method\":\"upi\",\"vpa\":\"user@okhdfcbank\"}" \
+            | sed -n 's/.*"id":"\([^"]*\)".*/\1/p')
+        status=$(curl -s -o /dev/null -w '%{http_code}' "${auth[@]}" "$BASE/api/v1/payments/$payment")
+        [ "$status" = 200 ] || missing=$((missing + 1))
+        curl -s -o /dev/null "${auth[@]}" "$BASE/api/v1/payments?limit=10"
+    done
+
+    echo "rounds: $ROUNDS, reads right after a write that failed: $missing"
+    echo "replica reads: $(metric gateway_datasource_replica_reads_total)"
+    echo "primary fallbacks (no replica qualified): $(metric gateway_datasource_primary_fallbacks_total)"
+    echo "lookups retried on the primary: $(metric gateway_datasource_primary_retries_total)"
+    echo "replica lag ms: $(metric gateway_datasource_replica_lag_milliseconds)"
+    [ "$missing" = 0 ]
+}
+
+case "${1:-}" in
+    start) start ;;
+    stop) stop ;;
+    verify) verify ;;
+    *) echo "usage: $0 start|verify|stop" >&2; exit 1 ;;
+esac
@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# Runs one load scenario against a freshly started gateway and leaves the JSON report in
+# target/load-<scenario>.json. Needs a local Postgres (create_db.sql); override the
+# connection with SPRING_DATASOURCE_URL / _USERNAME / _PASSWORD.
+#
+#   src/bench/run-load.sh --scenario checkout --concurrency 64 --duration 60
+#
+# Settlement runs in TEST_MODE so every payment settles after TEST_PROCESSING_DELAY ms, and
+# rate limiting is off so the harness measures the gateway rather than its own API key quota.
+# Extra gateway arguments (--name=value) go in GATEWAY_ARGS.
+set -euo pipefail
+cd "$(dirname "$0")/../.."
+
+PORT=${PORT:-8080}
+export TEST_MODE=true
+export TEST_PAYMENT_SUCCESS=${TEST_PAYMENT_SUCCESS:-true}
+export TEST_PROCESSING_DELAY=${TEST_PROCESSING_DELAY:-1000}
+
+mvn -B -q -Pbenchmark -DskipTests package test-compile
+
+java ${GATEWAY_JAVA_OPTS:-} -jar target/payment-gateway-1.0.0.jar \
+    --server.port="$PORT" \
+    --gateway.ratelimit.enabled=false \
+    --logging.level.com.gateway=INFO \
+    --spring.jpa.show-sql=false ${GATEWAY_ARGS:-} > target/load-server.log 2>&1 &
+SERVER=$!
+trap 'kill $SERVER 2>/dev/null; wait $SERVER 2>/dev/null || true' EXIT
+
+for _ in $(seq 1 120); do
+    if curl -sf "http://localhost:$PORT/health" > /dev/null; then
+        break
+    fi
+    sleep 1
+done
+curl -sf "http://localhost:$PORT/health" > /dev/null || { echo "gateway did not become healthy" >&2; exit 1; }
+
+mvn -B -q -Pbenchmark exec:exec@load -Dload.args="--base-url http://localhost:$PORT $*"
@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+# Measures insert and lookup latency directly against Postgres with pgbench, so the same
+# workload can be run on the schema before and after the monthly partitioning (V2 migration).
+# Connection comes from the usual PG* variables (PGHOST, PGDATABASE, PGUSER, ...).
+#
+#   psql -v rows=100000000 -v batch=1 -f src/bench/seed-payments.sql
+#   ROWS=100000000 BATCH=1 LABEL=after src/bench/schema-bench.sh
+#
+# ROWS and BATCH must match the seed so lookups hit existing ids. Each workload runs for
+# DURATION seconds with CLIENTS connections; per-transaction latencies are logged and reduced
+# to percentiles in target/schema-bench-<label>.json. Inserted rows are removed afterwards.
+set -euo pipefail
+cd "$(dirname "$0")/../.."
+
+ROWS=${ROWS:?set ROWS to the seeded row count}
+BATCH=${BATCH:?set BATCH to the seed batch}
+LABEL=${LABEL:-$(date +%Y%m%d%H%M%S)}
+CLIENTS=${CLIENTS:-16}
+DURATION=${DURATION:-60}
+MERCHANT=550e8400-e29b-41d4-a716-446655440000
+
+WORK=target/schema-bench/$LABEL
+rm -rf "$WORK"
+mkdir -p "$WORK"
+
+cat > "$WORK/insert.sql" <<EOF
+\set n random(1, 999999999999)
+INSERT INTO orders (id, merchant_id, amount, currency, status, created_at, updated_at, version)
+VALUES ('order_pgb' || :client_id || '_' || :n, '$MERCHANT', 50000, 'INR', 'created', now(), now(), 0);
+INSERT INTO payments (id, order_id, merchant_id, amount, currency, method, status, vpa, created_at, updated_at,
+                      next_attempt_at, version)
+VALUES ('pay_pgb' || :client_id || '_' || :n, 'order_pgb' || :client_id || '_' || :n, '$MERCHANT', 50000, 'INR',
+        'upi', 'processing', 'bench@okhdfcbank', now(), now(), now() + INTERVAL '1 hour', 0);
+EOF
+
+cat > "$WORK/lookup_id.sql" <<EOF
+\set i random(1, $ROWS)
+SELECT * FROM payments WHERE id = 'pay_seed' || '$BATCH' || lpad(:i::text, 9, '0');
+EOF
+
+cat > "$WORK/lookup_order.sql" <<EOF
+\set i random(1, $ROWS)
+SELECT * FROM payments WHERE order_id = 'order_seed' || '$BATCH' || lpad(:i::text, 9, '0');
+EOF
+
+cat > "$WORK/list_page.sql" <<EOF
+\set days random(0, 364)
+SELECT * FROM payments WHERE merchant_id = '$MERCHANT' AND created_at < now() - :days * INTERVAL '1 day'
+ORDER BY created_at DESC, id DESC LIMIT 100;
+EOF
+
+cat > "$WORK/due.sql" <<EOF
+SELECT id FROM payments WHERE status = 'processing' AND next_attempt_at <= now()
+ORDER BY next_attempt_at LIMIT 500;
+EOF
+
+echo "{" > "target/schema-bench-$LABEL.json"
+first=true
+for workload in insert lookup_id lookup_order list_page due; do
+    echo "running $workload" >&2
+    (cd "$WORK" && pgbench -n -M prepared -c "$CLIENTS" -j "$CLIENTS" -T "$DURATION" \
+        -f "$workload.sql" --log --log-prefix="log_$workload" > "$workload.out")
+    # Third column of the per-transaction log is the latency in microseconds.
+    stats=$(cat "$WORK/log_$workload".* | awk '{print $3}' | sort -n | awk '
+        function at(p) { return v[int(NR * p) > 0 ? int(NR * p) : 1] / 1000 }
+        { v[NR] = $1; sum += $1 }
+        END {
+            printf "{\"count\": %d, \"tps\": %.1f, \"mean_ms\": %.3f, \"p50_ms\": %.3f, \"p99_ms\": %.3f, \"p999_ms\": %.3f, \"max_ms\": %.3f}",
+                NR, NR / '"$DURATION"', sum / NR / 1000, at(0.5), at(0.99), at(0.999), v[NR] / 1000
+        }')
+    $first || echo "," >> "target/schema-bench-$LABEL.json"
+    first=false
+    printf '  "%s": %s' "$workload" "$stats" >> "target/schema-bench-$LABEL.json"
+done
+printf '\n}\n' >> "target/schema-bench-$LABEL.json"
+
+psql -q -c "DELETE FROM payments WHERE id LIKE 'pay\_pgb%'" -c "DELETE FROM orders WHERE id LIKE 'order\_pgb%'"
+cat "target/schema-bench-$LABEL.json"
@@ -0,0 +1,56 @@
+-- Bulk-loads settled orders and payments for the test merchant so the list and export
+-- scenarios, and schema-bench.sh, run against a realistic table. Start the gateway once first
+-- so the schema exists.
+--
+--   psql -d payment_gateway -v rows=10000000 -f src/bench/seed-payments.sql
+--   psql -d payment_gateway -v rows=100000000 -v batch=1 -f src/bench/seed-payments.sql
+--
+-- Rows are spread evenly over the past year. Ids are 'pay_seed' / 'order_seed' + batch + the
+-- row number padded to 9 digits; batch defaults to the load time, so loading twice is safe,
+-- and schema-bench.sh rebuilds ids from the batch and row count. Works with and without the
+-- monthly partitions (V2 migration); with them, the months being loaded are created first.
+\if :{?rows}
+\else
+\set rows 1000000
+\endif
+\if :{?batch}
+\else
+SELECT to_char(now(), 'YYYYMMDDHH24MISS') AS batch \gset
+\endif
+\echo seeding :rows rows as batch :batch
+
+SELECT to_regproc('gateway_create_monthly_partitions') IS NOT NULL AS partitioned \gset
+\if :partitioned
+SELECT gateway_create_monthly_partitions('orders', (now() - INTERVAL '365 days')::date, now()::date);
+SELECT gateway_create_monthly_partitions('payments', (now() - INTERVAL '365 days')::date, now()::date);
+\endif
+
+BEGIN;
+
+INSERT INTO orders (id, merchant_id, amount, currency, receipt, status, created_at, updated_at, version)
+SELECT 'order_seed' || :'batch' || lpad(i::text, 9, '0'), '550e8400-e29b-41d4-a716-446655440000',
+       100 + (i % 100000) * 10, 'INR', 'receipt_' || i,
+       CASE WHEN i % 20 = 0 THEN 'attempted' ELSE 'paid' END,
+       now() - (INTERVAL '365 days') * (i::double precision / :rows),
+       now() - (INTERVAL '365 days') * (i::double precision / :rows), 0
+FROM generate_series(1, :rows) AS i;
+
+INSERT INTO payments (id, order_id, merchant_id, amount, currency, method, status, vpa, card_network, card_last4,
+                      error_code, error_description, created_at, updated_at, version)
+SELECT 'pay_seed' || :'batch' || lpad(i::text, 9, '0'), 'order_seed' || :'batch' || lpad(i::text, 9, '0'),
+       '550e8400-e29b-41d4-a716-446655440000', 100 + (i % 100000) * 10, 'INR',
+       CASE WHEN i % 3 = 0 THEN 'upi' ELSE 'card' END,
+       CASE WHEN i % 20 = 0 THEN 'failed' ELSE 'success' END,
+       CASE WHEN i % 3 = 0 THEN 'user' || (i % 10000) || '@okhdfcbank' END,
+       CASE WHEN i % 3 = 0 THEN NULL WHEN i % 2 = 0 THEN 'visa' ELSE 'mastercard' END,
+       CASE WHEN i % 3 = 0 THEN NULL ELSE lpad((i % 10000)::text, 4, '0') END,
+       CASE WHEN i % 20 = 0 THEN 'PAYMENT_FAILED' END,
+       CASE WHEN i % 20 = 0 THEN 'Payment processing failed' END,
+       now() - (INTERVAL '365 days') * (i::double precision / :rows),
+       now() - (INTERVAL '365 days') * (i::double precision / :rows) + INTERVAL '7 seconds', 1
+FROM generate_series(1, :rows) AS i;
+
+COMMIT;
+
+ANALYZE orders;
+ANALYZE payments;
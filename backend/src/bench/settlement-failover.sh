@@ -0,0 +1,87 @@
+#!/usr/bin/env bash
+# Two gateway nodes share settlement through one local Postgres; node A is killed with -9
+# while it holds claimed payments. Passes when every payment still settles exactly once:
+# none left processing, one webhook event per payment, every successful payment's order paid.
+#
+#   src/bench/settlement-failover.sh [payments]
+#
+# Node A holds its outcomes for 5 s before writing them, so it always dies with claimed,
+# unwritten payments. psql must reach the gateway database (PGHOST/PGUSER/PGDATABASE...).
+# The test merchant's webhook_url is pointed at a closed port for the run so events are
+# recorded, then restored.
+set -euo pipefail
+cd "$(dirname "$0")/../.."
+
+PAYMENTS=${1:-300}
+LEASE_SECONDS=5
+export TEST_MODE=true TEST_PAYMENT_SUCCESS=true TEST_PROCESSING_DELAY=2000
+VPA="failover$(date +%s)@okhdfcbank"
+AUTH=(-H "X-Api-Key: key_test_abc123" -H "X-Api-Secret: secret_test_xyz789" -H "Content-Type: application/json")
+PSQL=(psql -X -q -t -A -v ON_ERROR_STOP=1)
+
+mvn -B -q -DskipTests package
+
+start_node() {
+    local id=$1 port=$2
+    shift 2
+    NODE_ID=$id java -jar target/payment-gateway-1.0.0.jar --server.port="$port" "$@" \
+        --gateway.settlement.lease-seconds=$LEASE_SECONDS --gateway.ratelimit.enabled=false \
+        --logging.level.com.gateway=INFO --spring.jpa.show-sql=false > "target/failover-node-$id.log" 2>&1 &
+    echo $!
+}
+
+await_health() {
+    for _ in $(seq 1 120); do
+        curl -sf "http://localhost:$1/health" > /dev/null && return 0
+        sleep 1
+    done
+    echo "node on port $1 did not become healthy" >&2
+    exit 1
+}
+
+ORIGINAL_WEBHOOK=$("${PSQL[@]}" -c "SELECT coalesce(webhook_url, '') FROM merchants WHERE api_key = 'key_test_abc123'")
+"${PSQL[@]}" -c "UPDATE merchants SET webhook_url = 'http://127.0.0.1:9/failover' WHERE api_key = 'key_test_abc123'"
+NODE_A=$(start_node 1 8081 --gateway.settlement.flush-interval-ms=5000 --gateway.settlement.batch-size=100000)
+NODE_B=$(start_node 2 8082)
+
+cleanup() {
+    kill "$NODE_A" "$NODE_B" 2> /dev/null || true
+    echo "UPDATE merchants SET webhook_url = NULLIF(:'url', '') WHERE api_key = 'key_test_abc123'" \
+        | "${PSQL[@]}" -v url="$ORIGINAL_WEBHOOK"
+}
+trap cleanup EXIT
+await_health 8081
+await_health 8082
+
+echo "creating $PAYMENTS payments, alternating nodes"
+for i in $(seq 1 "$PAYMENTS"); do
+    port=$((i % 2 == 0 ? 8081 : 8082))
+    order=$(curl -sf "${AUTH[@]}" -d '{"amount":50000}' "http://localhost:$port/api/v1/orders" | sed 's/.*"id":"\([^"]*\)".*/\1/')
+    curl -sf "${AUTH[@]}" -o /dev/null \
+        -d "{\"order_id\":\"$order\",\"method\":\"upi\",\"vpa\":\"$VPA\"}" \
+        "http://localhost:$port/api/v1/payments" &
+    if ((i % 50 == 0)); then wait; fi
+done
+wait
+
+# The last payments are now due; A has claimed its share and not written them.
+sleep 2.5
+kill -9 "$NODE_A"
+echo "killed node A; waiting for its leases to expire"
+sleep $((LEASE_SECONDS + 5))
+
+QUERY="WITH run AS (SELECT * FROM payments WHERE vpa = '$VPA')
+SELECT (SELECT count(*) FROM run),
+       (SELECT count(*) FROM run WHERE status = 'processing'),
+       (SELECT count(*) FROM (SELECT payment_id FROM webhook_events WHERE payment_id IN (SELECT id FROM run)
+                              GROUP BY payment_id HAVING count(*) > 1) d),
+       (SELECT count(*) FROM run p JOIN orders o ON o.id = p.order_id WHERE p.status = 'success' AND o.status <> 'paid')"
+IFS='|' read -r total processing duplicated unpaid < <("${PSQL[@]}" -c "$QUERY")
+recovered=$(curl -sf http://localhost:8082/metrics | sed 's/.*"recovered_total":\([0-9]*\).*/\1/')
+
+echo "{\"payments\":$total,\"still_processing\":$processing,\"duplicate_events\":$duplicated,\"unpaid_orders\":$unpaid,\"recovered_by_b\":$recovered}"
+if [[ $total -ne $PAYMENTS || $processing -ne 0 || $duplicated -ne 0 || $unpaid -ne 0 ]]; then
+    echo "FAILED" >&2
+    exit 1
+fi
+echo "OK"
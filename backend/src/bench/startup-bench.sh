@@ -0,0 +1,102 @@
+#!/usr/bin/env bash
+# Cold-start timing, standard jar vs the fast-start build (Spring AOT + AppCDS). Each run
+# starts the gateway against the local Postgres and measures, from process launch:
+#   health_ms - first 200 from /health
+#   order_ms  - first 201 from POST /api/v1/orders with the test merchant's credentials
+# RUNS runs per mode; the report (per-run values and medians) is target/startup.json.
+#
+#   src/bench/startup-bench.sh
+#   RUNS=10 MODES="fast" src/bench/startup-bench.sh
+set -euo pipefail
+cd "$(dirname "$0")/../.."
+
+PORT=${PORT:-8080}
+RUNS=${RUNS:-5}
+MODES=${MODES:-"standard fast"}
+BASE=http://localhost:$PORT
+
+if [ -z "${SKIP_BUILD:-}" ]; then
+    mvn -B -q -Pfast-start -DskipTests package
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+start() {
+    local mode=$1
+    case "$mode" in
+        standard)
+            java ${GATEWAY_JAVA_OPTS:-} -jar target/payment-gateway-1.0.0.jar --server.port="$PORT" \
+                > "target/startup-$mode.log" 2>&1 &
+            ;;
+        fast)
+            (cd target/fast-start && exec java ${GATEWAY_JAVA_OPTS:-} -XX:SharedArchiveFile=application.jsa \
+                -Dspring.aot.enabled=true -jar payment-gateway-1.0.0-fast-start.jar --server.port="$PORT") \
+                > "target/startup-$mode.log" 2>&1 &
+            ;;
+        *)
+            echo "unknown mode $mode" >&2
+            exit 1
+            ;;
+    esac
+    SERVER=$!
+}
+
+stop() {
+    kill "$SERVER" 2>/dev/null || true
+    wait "$SERVER" 2>/dev/null || true
+}
+trap stop EXIT
+
+# Polls until the command succeeds, for at most two minutes.
+await() {
+    local deadline=$(( $(now_ms) + 120000 ))
+    until "$@"; do
+        if [ "$(now_ms)" -gt "$deadline" ]; then
+            return 1
+        fi
+        sleep 0.01
+    done
+}
+
+health_ok() {
+    [ "$(curl -s -o /dev/null -w '%{http_code}' "$BASE/health")" = 200 ]
+}
+
+order_created() {
+    [ "$(curl -s -o /dev/null -w '%{http_code}' -X POST "$BASE/api/v1/orders" \
+        -H 'X-Api-Key: key_test_abc123' -H 'X-Api-Secret: secret_test_xyz789' \
+        -H 'Content-Type: application/json' -d '{"amount":50000,"currency":"INR"}')" = 201 ]
+}
+
+median() {
+    tr ' ' '\n' | sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+report="{"
+for mode in $MODES; do
+    health_runs=""
+    order_runs=""
+    for run in $(seq 1 "$RUNS"); do
+        launched=$(now_ms)
+        start "$mode"
+        await health_ok || { echo "$mode: /health never returned 200, see target/startup-$mode.log" >&2; exit 1; }
+        health=$(( $(now_ms) - launched ))
+        await order_created || { echo "$mode: order creation never succeeded" >&2; exit 1; }
+        order=$(( $(now_ms) - launched ))
+        stop
+        echo "$mode run $run: health ${health}ms, first order ${order}ms" >&2
+        health_runs="$health_runs $health"
+        order_runs="$order_runs $order"
+    done
+    health_runs=${health_runs# }
+    order_runs=${order_runs# }
+    [ "$report" = "{" ] || report="$report,"
+    report="$report
+  \"$mode\": {\"health_ms\": [${health_runs// /, }], \"order_ms\": [${order_runs// /, }], \
+\"median_health_ms\": $(echo "$health_runs" | median), \"median_order_ms\": $(echo "$order_runs" | median)}"
+done
+report="$report
+}"
+echo "$report" | tee target/startup.json
@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+# Platform against virtual threads under the same load: runs the checkout scenario with
+# spring.threads.virtual.enabled=false, then true, ROUNDS times each alternating, and reports
+# median checkout throughput and p99 latency side by side. Virtual threads need a Java 21
+# runtime; the plain jar is used, so the setting is read at startup (no AOT).
+#
+#   src/bench/virtual-threads.sh
+#   ROUNDS=5 LOAD_ARGS="--concurrency 512 --duration 120" src/bench/virtual-threads.sh
+#
+# The report is target/virtual-threads.json; each run's full report is kept as
+# target/load-threads-<mode>-<round>.json.
+set -euo pipefail
+cd "$(dirname "$0")/../.."
+
+ROUNDS=${ROUNDS:-3}
+LOAD_ARGS=${LOAD_ARGS:-"--concurrency 256 --duration 60"}
+
+# A checkout statistic from a load report (Jackson's indented output).
+checkout() {
+    awk -v key="\"$2\"" '/"checkout" : \{/ { found = 1 } found && $1 == key { gsub(/[ ,]/, "", $3); print $3; exit }' "$1"
+}
+
+median() {
+    tr ' ' '\n' | sort -g | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+declare -A throughput p99
+for round in $(seq 1 "$ROUNDS"); do
+    for mode in platform virtual; do
+        output=target/load-threads-$mode-$round.json
+        enabled=false
+        [ "$mode" = virtual ] && enabled=true
+        GATEWAY_ARGS="--spring.threads.virtual.enabled=$enabled ${GATEWAY_ARGS:-}" \
+            src/bench/run-load.sh --scenario checkout $LOAD_ARGS --output "$output" > /dev/null
+        t=$(checkout "$output" throughput_per_s)
+        p=$(checkout "$output" p99_ms)
+        echo "round $round, $mode threads: $t checkouts/s, p99 $p ms" >&2
+        throughput[$mode]="${throughput[$mode]:-} $t"
+        p99[$mode]="${p99[$mode]:-} $p"
+    done
+done
+
+runs() {
+    local values=${1# }
+    echo "[${values// /, }]"
+}
+
+platform_t=$(echo "${throughput[platform]# }" | median)
+virtual_t=$(echo "${throughput[virtual]# }" | median)
+platform_p99=$(echo "${p99[platform]# }" | median)
+virtual_p99=$(echo "${p99[virtual]# }" | median)
+cat > target/virtual-threads.json <<JSON
+{
+  "load_args": "$LOAD_ARGS",
+  "platform": {
+    "throughput_per_s": $(runs "${throughput[platform]}"),
+    "p99_ms": $(runs "${p99[platform]}"),
+    "median_throughput_per_s": $platform_t,
+    "median_p99_ms": $platform_p99
+  },
+  "virtual": {
+    "throughput_per_s": $(runs "${throughput[virtual]}"),
+    "p99_ms": $(runs "${p99[virtual]}"),
+    "median_throughput_per_s": $virtual_t,
+    "median_p99_ms": $virtual_p99
+  }
+}
+JSON
+cat target/virtual-threads.json
+printf '%-10s %15s %12s\n' threads checkouts/s p99_ms >&2
+printf '%-10s %15s %12s\n' platform "$platform_t" "$platform_p99" >&2
+printf '%-10s %15s %12s\n' virtual "$virtual_t" "$virtual_p99" >&2
@@ -0,0 +1,15 @@
+package com.gateway.cache;
+
+import java.time.Duration;
+
+/**
+ * Key-value backend behind a {@link ReadThroughCache}.
+ */
+public interface CacheStore<V> {
+
+    V get(String key);
+
+    void put(String key, V value, Duration ttl);
+
+    void invalidate(String key);
+}
@@ -0,0 +1,27 @@
+package com.gateway.cache;
+
+import java.time.Duration;
+
+public class InMemoryCacheStore<V> implements CacheStore<V> {
+
+    private final TtlCache<String, V> cache;
+
+    public InMemoryCacheStore(int maxSize) {
+        this.cache = new TtlCache<>(maxSize);
+    }
+
+    @Override
+    public V get(String key) {
+        return cache.get(key);
+    }
+
+    @Override
+    public void put(String key, V value, Duration ttl) {
+        cache.put(key, value, ttl.toNanos());
+    }
+
+    @Override
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+}
@@ -0,0 +1,81 @@
+package com.gateway.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Loads missing entries through the supplied loader and records hit ratio and latency.
+ * Loader results of {@code null} are not cached.
+ */
+public class ReadThroughCache<V> {
+
+    private final String name;
+    private final CacheStore<V> store;
+    private final Function<V, Duration> ttl;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder hitNanos = new LongAdder();
+    private final LongAdder missNanos = new LongAdder();
+
+    public ReadThroughCache(String name, CacheStore<V> store, Function<V, Duration> ttl) {
+        this.name = name;
+        this.store = store;
+        this.ttl = ttl;
+    }
+
+    public V get(String key, Function<String, V> loader) {
+        long start = System.nanoTime();
+        V value = store.get(key);
+        if (value != null) {
+            hits.increment();
+            hitNanos.add(System.nanoTime() - start);
+            return value;
+        }
+
+        value = loader.apply(key);
+        if (value != null) {
+            store.put(key, value, ttl.apply(value));
+        }
+        misses.increment();
+        missNanos.add(System.nanoTime() - start);
+        return value;
+    }
+
+    public void put(String key, V value) {
+        store.put(key, value, ttl.apply(value));
+    }
+
+    public void invalidate(String key) {
+        store.invalidate(key);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public long getAverageHitMicros() {
+        long h = hits.sum();
+        return h == 0 ? 0 : hitNanos.sum() / h / 1000;
+    }
+
+    public long getAverageMissMicros() {
+        long m = misses.sum();
+        return m == 0 ? 0 : missNanos.sum() / m / 1000;
+    }
+}
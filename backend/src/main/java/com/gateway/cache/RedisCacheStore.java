@@ -0,0 +1,54 @@
+package com.gateway.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import java.time.Duration;
+
+/**
+ * Stores entries as JSON strings in Redis or any server speaking its protocol, so several
+ * API nodes can share one cache. Uses its own mapper: entries are internal, not API output.
+ */
+public class RedisCacheStore<V> implements CacheStore<V> {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    private final StringRedisTemplate redis;
+    private final String prefix;
+    private final Class<V> type;
+
+    public RedisCacheStore(StringRedisTemplate redis, String prefix, Class<V> type) {
+        this.redis = redis;
+        this.prefix = prefix;
+        this.type = type;
+    }
+
+    @Override
+    public V get(String key) {
+        String json = redis.opsForValue().get(prefix + key);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            invalidate(key);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, V value, Duration ttl) {
+        try {
+            redis.opsForValue().set(prefix + key, MAPPER.writeValueAsString(value), ttl);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize cache entry " + prefix + key, e);
+        }
+    }
+
+    @Override
+    public void invalidate(String key) {
+        redis.delete(prefix + key);
+    }
+}
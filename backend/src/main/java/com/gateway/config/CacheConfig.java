@@ -0,0 +1,64 @@
+package com.gateway.config;
+
+import com.gateway.cache.CacheStore;
+import com.gateway.cache.InMemoryCacheStore;
+import com.gateway.cache.ReadThroughCache;
+import com.gateway.cache.RedisCacheStore;
+import com.gateway.models.Order;
+import com.gateway.models.OrderStatus;
+import com.gateway.models.Payment;
+import com.gateway.services.PaymentEventBus;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Value("${gateway.cache.type:memory}")
+    private String type;
+
+    @Value("${gateway.cache.max-size:100000}")
+    private int maxSize;
+
+    @Value("${gateway.cache.order-ttl-seconds:300}")
+    private long orderTtlSeconds;
+
+    @Value("${gateway.cache.order-unpaid-ttl-ms:1000}")
+    private long orderUnpaidTtlMs;
+
+    @Value("${gateway.cache.payment-processing-ttl-ms:1000}")
+    private long paymentProcessingTtlMs;
+
+    @Value("${gateway.cache.payment-terminal-ttl-seconds:600}")
+    private long paymentTerminalTtlSeconds;
+
+    @Bean
+    public ReadThroughCache<Order> orderCache(ObjectProvider<StringRedisTemplate> redis) {
+        // Unpaid orders still change (attempted, paid) on any node, and the memory store only
+        // invalidates on the node that made the change; paid is final.
+        Duration unpaid = Duration.ofMillis(orderUnpaidTtlMs);
+        Duration paid = Duration.ofSeconds(orderTtlSeconds);
+        return new ReadThroughCache<>("orders", store(redis, "order:", Order.class),
+                order -> OrderStatus.PAID.equals(order.getStatus()) ? paid : unpaid);
+    }
+
+    @Bean
+    public ReadThroughCache<Payment> paymentCache(ObjectProvider<StringRedisTemplate> redis) {
+        // Processing payments change once, when they settle; settled ones never change again.
+        Duration processing = Duration.ofMillis(paymentProcessingTtlMs);
+        Duration terminal = Duration.ofSeconds(paymentTerminalTtlSeconds);
+        return new ReadThroughCache<>("payments", store(redis, "payment:", Payment.class),
+                payment -> PaymentEventBus.isTerminal(payment.getStatus()) ? terminal : processing);
+    }
+
+    private <V> CacheStore<V> store(ObjectProvider<StringRedisTemplate> redis, String prefix, Class<V> valueType) {
+        if ("redis".equals(type)) {
+            return new RedisCacheStore<>(redis.getObject(), prefix, valueType);
+        }
+        return new InMemoryCacheStore<>(maxSize);
+    }
+}
@@ -1,23 +1,77 @@
 package com.gateway.config;
 
+import com.gateway.datasource.ReplicaReads;
 import com.gateway.models.Merchant;
 import com.gateway.repositories.MerchantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Seeds the test merchant once the application is ready, on its own thread, so the lookup
+ * does not hold up startup. Requests with the test credentials that arrive first get 401;
+ * saving the merchant evicts that from the credential cache (MerchantCredentialListener).
+ * While the database is unreachable the seeder retries, backing off up to
+ * {@code gateway.seed.retry-max-ms}.
+ */
 @Component
-public class DataSeeder implements CommandLineRunner {
+public class DataSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSeeder.class);
 
     @Autowired
     private MerchantRepository merchantRepository;
 
-    @Override
-    public void run(String... args) throws Exception {
+    @Autowired
+    private ReplicaReads replicaReads;
+
+    @Value("${gateway.seed.retry-initial-ms:1000}")
+    private long retryInitialMs;
+
+    @Value("${gateway.seed.retry-max-ms:30000}")
+    private long retryMaxMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        Thread seeder = new Thread(this::seed, "data-seeder");
+        seeder.setDaemon(true);
+        seeder.start();
+    }
+
+    private void seed() {
+        long backoffMs = retryInitialMs;
+        while (true) {
+            try {
+                seedTestMerchant();
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // Another replica seeded it first.
+                log.info("Test merchant already seeded by another instance");
+                return;
+            } catch (RuntimeException e) {
+                // The database is not reachable yet; keep trying with backoff.
+                log.warn("Test merchant not seeded, retrying in {} ms: {}", backoffMs, e.getMessage());
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoffMs = Math.min(backoffMs * 2, retryMaxMs);
+        }
+    }
+
+    private void seedTestMerchant() {
         // Seed test merchant if it doesn't exist
-        if (merchantRepository.findByEmail("test@example.com").isEmpty()) {
+        if (replicaReads.onPrimary(() -> merchantRepository.findByEmail("test@example.com")).isEmpty()) {
             Merchant testMerchant = new Merchant();
             testMerchant.setId(UUID.fromString("550e8400-e29b-41d4-a716-446655440000"));
             testMerchant.setName("Test Merchant");
@@ -29,7 +83,7 @@ public class DataSeeder implements CommandLineRunner {
             testMerchant.setUpdatedAt(LocalDateTime.now());
             
             merchantRepository.save(testMerchant);
-            System.out.println("✅ Test merchant seeded successfully!");
+            log.info("Test merchant seeded");
         }
     }
 }
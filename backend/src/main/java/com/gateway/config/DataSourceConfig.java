@@ -0,0 +1,89 @@
+package com.gateway.config;
+
+import com.gateway.datasource.Replica;
+import com.gateway.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The primary pool (spring.datasource.*), one pool per read replica (gateway.datasource.*),
+ * and the routing data source in front of them that everything else uses.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Value("${gateway.datasource.replicas:}")
+    private String[] replicaUrls;
+
+    @Value("${gateway.datasource.replica-pool-size:20}")
+    private int replicaPoolSize;
+
+    @Value("${gateway.datasource.replica-connection-timeout-ms:500}")
+    private long replicaConnectionTimeoutMs;
+
+    @Value("${gateway.datasource.max-lag-ms:1000}")
+    private long maxLagMs;
+
+    @Value("${gateway.datasource.check-interval-ms:250}")
+    private long checkIntervalMs;
+
+    @Value("${gateway.datasource.check-timeout-seconds:1}")
+    private int checkTimeoutSeconds;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties properties,
+                                                             MeterRegistry meterRegistry) {
+        List<Replica> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource pool = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .build();
+            String name = "replica-" + (replicas.size() + 1);
+            pool.setPoolName(name);
+            pool.setReadOnly(true);
+            pool.setMaximumPoolSize(replicaPoolSize);
+            // A replica that is down costs a read this long before it falls back to the primary.
+            pool.setConnectionTimeout(replicaConnectionTimeoutMs);
+            // Start without the replica if it is unreachable; its health check brings it in later.
+            pool.setInitializationFailTimeout(-1);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new Replica(name, pool, checkTimeoutSeconds));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMs, checkIntervalMs, checkTimeoutSeconds);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource, HikariDataSource primaryDataSource) {
+        // Connection defaults are given so that the proxy never fetches a connection just to
+        // learn them, which would pick a target before the transaction is set up.
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setTargetDataSource(replicaRoutingDataSource);
+        proxy.setDefaultAutoCommit(primaryDataSource.isAutoCommit());
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+}
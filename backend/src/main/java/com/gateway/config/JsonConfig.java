@@ -0,0 +1,47 @@
+package com.gateway.config;
+
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.gateway.json.ApiErrorHttpMessageConverter;
+import com.gateway.json.GatewayJsonModule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Spring Boot adds Jackson module beans to its ObjectMapper and puts converter beans ahead of
+ * the default message converters.
+ */
+@Configuration
+public class JsonConfig {
+
+    @Value("${gateway.http.max-json-depth:32}")
+    private int maxJsonDepth;
+
+    @Value("${gateway.http.max-json-string-length:65536}")
+    private int maxJsonStringLength;
+
+    @Bean
+    public GatewayJsonModule gatewayJsonModule() {
+        return new GatewayJsonModule();
+    }
+
+    @Bean
+    public ApiErrorHttpMessageConverter apiErrorHttpMessageConverter() {
+        return new ApiErrorHttpMessageConverter();
+    }
+
+    /**
+     * Request bodies bind straight from the token stream; these limits make the parser fail
+     * on pathological nesting or huge values before anything is allocated for them.
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer streamReadConstraints() {
+        StreamReadConstraints constraints = StreamReadConstraints.builder()
+                .maxNestingDepth(maxJsonDepth)
+                .maxStringLength(maxJsonStringLength)
+                .maxNumberLength(32)
+                .build();
+        return builder -> builder.postConfigurer(mapper -> mapper.getFactory().setStreamReadConstraints(constraints));
+    }
+}
@@ -0,0 +1,163 @@
+package com.gateway.config;
+
+import com.gateway.cache.ReadThroughCache;
+import com.gateway.cache.TtlCache;
+import com.gateway.datasource.Replica;
+import com.gateway.datasource.ReplicaReads;
+import com.gateway.datasource.ReplicaRoutingDataSource;
+import com.gateway.models.Order;
+import com.gateway.models.Payment;
+import com.gateway.ratelimit.AdaptiveConcurrencyLimiter;
+import com.gateway.ratelimit.RateLimitInterceptor;
+import com.gateway.ratelimit.RateLimiter;
+import com.gateway.services.AuthenticationService;
+import com.gateway.services.DatabaseHealthIndicator;
+import com.gateway.services.IdGenerator;
+import com.gateway.services.PartitionMaintenance;
+import com.gateway.services.PaymentEventBus;
+import com.gateway.services.PaymentEventRelay;
+import com.gateway.services.SettlementEngine;
+import com.gateway.services.WebhookDispatcher;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the counters the services already keep (the ones behind {@code /metrics}) as
+ * gauges and function counters. They are read at scrape time, so the hot path pays nothing.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder settlementMetrics(SettlementEngine settlementEngine) {
+        return registry -> {
+            gauge(registry, "gateway.settlement.in_flight", settlementEngine, SettlementEngine::getInFlight);
+            gauge(registry, "gateway.settlement.in_flight.upi", settlementEngine, engine -> engine.getInFlight("upi"));
+            gauge(registry, "gateway.settlement.in_flight.card", settlementEngine, engine -> engine.getInFlight("card"));
+            gauge(registry, "gateway.settlement.pending.writes", settlementEngine, SettlementEngine::getPendingWrites);
+            counter(registry, "gateway.settlement.settled", settlementEngine, SettlementEngine::getSettledCount);
+            counter(registry, "gateway.settlement.recovered", settlementEngine, SettlementEngine::getRecoveredCount);
+            counter(registry, "gateway.settlement.claim.failures", settlementEngine, SettlementEngine::getClaimFailureCount);
+            counter(registry, "gateway.settlement.write.failures", settlementEngine, SettlementEngine::getWriteFailureCount);
+            counter(registry, "gateway.settlement.write.conflicts", settlementEngine, SettlementEngine::getConflictCount);
+            counter(registry, "gateway.settlement.duplicate_successes", settlementEngine, SettlementEngine::getDuplicateSuccessCount);
+            gauge(registry, "gateway.settlement.backlog", settlementEngine, SettlementEngine::getBacklog);
+            gauge(registry, "gateway.settlement.backlog.lag.ms", settlementEngine, SettlementEngine::getBacklogLagMillis);
+            counter(registry, "gateway.settlement.rejected", settlementEngine, SettlementEngine::getRejectedCount);
+        };
+    }
+
+    @Bean
+    public MeterBinder authCacheMetrics(AuthenticationService authenticationService) {
+        TtlCache<String, ?> cache = authenticationService.getCache();
+        return registry -> {
+            gauge(registry, "gateway.auth.cache.size", cache, TtlCache::size);
+            counter(registry, "gateway.auth.cache.hits", cache, TtlCache::getHitCount);
+            counter(registry, "gateway.auth.cache.negative.hits", authenticationService, AuthenticationService::getNegativeHitCount);
+            counter(registry, "gateway.auth.cache.misses", cache, TtlCache::getMissCount);
+            counter(registry, "gateway.auth.cache.evictions", cache, TtlCache::getEvictionCount);
+        };
+    }
+
+    @Bean
+    public MeterBinder webhookMetrics(WebhookDispatcher webhookDispatcher, PaymentEventBus paymentEventBus,
+                                      PaymentEventRelay paymentEventRelay) {
+        return registry -> {
+            gauge(registry, "gateway.webhooks.in_flight", webhookDispatcher, WebhookDispatcher::getInFlight);
+            counter(registry, "gateway.webhooks.delivered", webhookDispatcher, WebhookDispatcher::getDeliveredCount);
+            counter(registry, "gateway.webhooks.retried", webhookDispatcher, WebhookDispatcher::getRetriedCount);
+            counter(registry, "gateway.webhooks.failed", webhookDispatcher, WebhookDispatcher::getFailedCount);
+            gauge(registry, "gateway.events.subscribers", paymentEventBus, PaymentEventBus::getSubscriberCount);
+            counter(registry, "gateway.events.relay.received", paymentEventRelay, PaymentEventRelay::getReceivedCount);
+            counter(registry, "gateway.events.relay.reloaded", paymentEventRelay, PaymentEventRelay::getReloadedCount);
+            counter(registry, "gateway.events.relay.reconnects", paymentEventRelay, PaymentEventRelay::getReconnectCount);
+        };
+    }
+
+    @Bean
+    public MeterBinder limitMetrics(RateLimitInterceptor rateLimitInterceptor) {
+        RateLimiter rateLimiter = rateLimitInterceptor.getRateLimiter();
+        AdaptiveConcurrencyLimiter concurrency = rateLimitInterceptor.getConcurrencyLimiter();
+        return registry -> {
+            gauge(registry, "gateway.ratelimit.buckets", rateLimiter, RateLimiter::size);
+            counter(registry, "gateway.ratelimit.rejected", rateLimiter, RateLimiter::getRejectedCount);
+            counter(registry, "gateway.ratelimit.buckets.dropped", rateLimiter, RateLimiter::getDroppedCount);
+            gauge(registry, "gateway.concurrency.limit", concurrency, AdaptiveConcurrencyLimiter::getLimit);
+            gauge(registry, "gateway.concurrency.in_flight", concurrency, AdaptiveConcurrencyLimiter::getInFlight);
+            counter(registry, "gateway.concurrency.shed", concurrency, AdaptiveConcurrencyLimiter::getShedCount);
+        };
+    }
+
+    @Bean
+    public MeterBinder lookupCacheMetrics(ReadThroughCache<Order> orderCache, ReadThroughCache<Payment> paymentCache) {
+        return registry -> {
+            for (ReadThroughCache<?> cache : new ReadThroughCache<?>[]{orderCache, paymentCache}) {
+                FunctionCounter.builder("gateway.cache.hits", cache, ReadThroughCache::getHitCount)
+                        .tag("cache", cache.getName())
+                        .register(registry);
+                FunctionCounter.builder("gateway.cache.misses", cache, ReadThroughCache::getMissCount)
+                        .tag("cache", cache.getName())
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder databaseHealthMetrics(DatabaseHealthIndicator databaseHealthIndicator) {
+        // Scrapes share the probe cache with /health.
+        return registry -> gauge(registry, "gateway.database.up", databaseHealthIndicator,
+                indicator -> indicator.check().up() ? 1 : 0);
+    }
+
+    @Bean
+    public MeterBinder idMetrics(IdGenerator idGenerator) {
+        return registry -> counter(registry, "gateway.ids.lease.renew.failures", idGenerator,
+                IdGenerator::getLeaseRenewFailureCount);
+    }
+
+    @Bean
+    public MeterBinder partitionMetrics(PartitionMaintenance partitionMaintenance) {
+        return registry -> {
+            counter(registry, "gateway.partitions.created", partitionMaintenance, PartitionMaintenance::getCreatedCount);
+            counter(registry, "gateway.partitions.dropped", partitionMaintenance, PartitionMaintenance::getDroppedCount);
+            counter(registry, "gateway.partitions.failures", partitionMaintenance, PartitionMaintenance::getFailureCount);
+        };
+    }
+
+    @Bean
+    public MeterBinder replicaMetrics(ReplicaRoutingDataSource replicaRoutingDataSource, ReplicaReads replicaReads) {
+        return registry -> {
+            counter(registry, "gateway.datasource.replica.reads", replicaRoutingDataSource,
+                    ReplicaRoutingDataSource::getReplicaReadCount);
+            counter(registry, "gateway.datasource.primary.fallbacks", replicaRoutingDataSource,
+                    ReplicaRoutingDataSource::getPrimaryFallbackCount);
+            counter(registry, "gateway.datasource.replica.connect.failures", replicaRoutingDataSource,
+                    ReplicaRoutingDataSource::getConnectFailureCount);
+            counter(registry, "gateway.datasource.replica.check.failures", replicaRoutingDataSource,
+                    ReplicaRoutingDataSource::getCheckFailureCount);
+            counter(registry, "gateway.datasource.primary.retries", replicaReads, ReplicaReads::getPrimaryRetryCount);
+            for (Replica replica : replicaRoutingDataSource.getReplicas()) {
+                Gauge.builder("gateway.datasource.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                        .tag("replica", replica.getName())
+                        .register(registry);
+                Gauge.builder("gateway.datasource.replica.lag", replica, Replica::getLagMillis)
+                        .tag("replica", replica.getName())
+                        .baseUnit("milliseconds")
+                        .register(registry);
+            }
+        };
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value) {
+        Gauge.builder(name, source, value).register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value) {
+        FunctionCounter.builder(name, source, value).register(registry);
+    }
+}
@@ -0,0 +1,120 @@
+package com.gateway.config;
+
+import com.gateway.json.ApiError;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+
+/**
+ * Rejects request bodies over {@code gateway.http.max-request-bytes}: up front from
+ * Content-Length, or as soon as a chunked body reads past the limit.
+ */
+@Component
+public class RequestSizeFilter extends OncePerRequestFilter {
+
+    public static final ApiError TOO_LARGE = ApiError.badRequest("Request body too large");
+
+    @Value("${gateway.http.max-request-bytes:1048576}")
+    private long maxRequestBytes;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            TOO_LARGE.writeTo(response.getOutputStream());
+            return;
+        }
+        chain.doFilter(request.getContentLengthLong() < 0 ? new BoundedRequest(request, maxRequestBytes) : request, response);
+    }
+
+    /**
+     * Thrown while reading a body that exceeds the limit; surfaces as a 413.
+     */
+    public static class RequestTooLargeException extends IOException {
+        public RequestTooLargeException() {
+            super("Request body exceeds the size limit");
+        }
+    }
+
+    private static final class BoundedRequest extends HttpServletRequestWrapper {
+
+        private final long limit;
+        private ServletInputStream stream;
+
+        BoundedRequest(HttpServletRequest request, long limit) {
+            super(request);
+            this.limit = limit;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (stream == null) {
+                stream = new BoundedInputStream(super.getInputStream(), limit);
+            }
+            return stream;
+        }
+    }
+
+    private static final class BoundedInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private long remaining;
+
+        BoundedInputStream(ServletInputStream delegate, long limit) {
+            this.delegate = delegate;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                consumed(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = delegate.read(buffer, offset, length);
+            if (n > 0) {
+                consumed(n);
+            }
+            return n;
+        }
+
+        private void consumed(int n) throws IOException {
+            remaining -= n;
+            if (remaining < 0) {
+                throw new RequestTooLargeException();
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            delegate.setReadListener(listener);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.gateway.controllers;
+
+import com.gateway.config.RequestSizeFilter;
+import com.gateway.json.ApiError;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps request bodies that fail to parse onto the API's error format.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    private static final ApiError MALFORMED_BODY = ApiError.badRequest("Request body is not valid JSON for this endpoint");
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ApiError> handleUnreadable(HttpMessageNotReadableException e) {
+        if (e.getMostSpecificCause() instanceof RequestSizeFilter.RequestTooLargeException) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(RequestSizeFilter.TOO_LARGE);
+        }
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(MALFORMED_BODY);
+    }
+}
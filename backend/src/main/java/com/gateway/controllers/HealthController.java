@@ -1,5 +1,8 @@
 package com.gateway.controllers;
 
+import com.gateway.services.DatabaseHealthIndicator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -9,13 +12,19 @@ import java.util.Map;
 
 @RestController
 public class HealthController {
-    
+
+    @Autowired
+    private DatabaseHealthIndicator databaseHealthIndicator;
+
     @GetMapping("/health")
-    public ResponseEntity<Map<String, String>> health() {
-        Map<String, String> response = new HashMap<>();
-        response.put("status", "healthy");
-        response.put("database", "connected");
+    public ResponseEntity<Map<String, Object>> health() {
+        DatabaseHealthIndicator.Probe database = databaseHealthIndicator.check();
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", database.up() ? "healthy" : "unhealthy");
+        response.put("database", database.up() ? "connected" : "disconnected");
+        response.put("database_latency_ms", database.latencyMillis());
+        response.put("checked_at", database.checkedAt().toString());
         response.put("timestamp", Instant.now().toString());
-        return ResponseEntity.ok(response);
+        return ResponseEntity.status(database.up() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(response);
     }
 }
@@ -0,0 +1,129 @@
+package com.gateway.controllers;
+
+import com.gateway.json.ApiError;
+import com.gateway.models.Merchant;
+import com.gateway.models.PaymentStatsRollup;
+import com.gateway.ratelimit.RateLimited;
+import com.gateway.services.AuthenticationService;
+import com.gateway.services.MerchantStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/api/v1/merchants")
+public class MerchantController {
+
+    private static final ApiError INVALID_GRANULARITY = ApiError.badRequest("granularity must be hour or day");
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private MerchantStatsService merchantStatsService;
+
+    @GetMapping("/me/stats")
+    @RateLimited("merchants.stats")
+    public ResponseEntity<?> getStats(
+            @RequestHeader(value="X-Api-Key", required=false) String apiKey,
+            @RequestHeader(value="X-Api-Secret", required=false) String apiSecret,
+            @RequestParam(value="granularity", defaultValue="day") String granularity,
+            @RequestParam(value="from", required=false) String from,
+            @RequestParam(value="to", required=false) String to) {
+
+        if (apiKey == null || apiSecret == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiError.MISSING_CREDENTIALS);
+        }
+
+        Optional<Merchant> merchant = authenticationService.authenticate(apiKey, apiSecret);
+        if (merchant.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiError.INVALID_CREDENTIALS);
+        }
+
+        if (!MerchantStatsService.HOUR.equals(granularity) && !MerchantStatsService.DAY.equals(granularity)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(INVALID_GRANULARITY);
+        }
+
+        LocalDateTime end;
+        LocalDateTime start;
+        try {
+            end = to != null ? LocalDateTime.parse(to) : LocalDateTime.now();
+            start = from != null ? LocalDateTime.parse(from)
+                    : MerchantStatsService.HOUR.equals(granularity) ? end.minusHours(24) : end.minusDays(30);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiError.INVALID_DATE_TIME);
+        }
+
+        List<PaymentStatsRollup> rollups = merchantStatsService.getRollups(merchant.get().getId(), granularity, start, end);
+
+        Totals totals = new Totals();
+        Map<String, Totals> byMethod = new TreeMap<>();
+        Map<String, Totals> byNetwork = new TreeMap<>();
+        Map<LocalDateTime, Totals> byBucket = new TreeMap<>();
+        for (PaymentStatsRollup rollup : rollups) {
+            totals.add(rollup);
+            byMethod.computeIfAbsent(rollup.getMethod(), k -> new Totals()).add(rollup);
+            if (!rollup.getCardNetwork().isEmpty()) {
+                byNetwork.computeIfAbsent(rollup.getCardNetwork(), k -> new Totals()).add(rollup);
+            }
+            byBucket.computeIfAbsent(rollup.getBucketStart(), k -> new Totals()).add(rollup);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("merchant_id", merchant.get().getId());
+        response.put("granularity", granularity);
+        response.put("from", start);
+        response.put("to", end);
+        response.put("totals", totals.toMap());
+        Map<String, Object> methods = new LinkedHashMap<>();
+        byMethod.forEach((method, t) -> methods.put(method, t.toMap()));
+        response.put("by_method", methods);
+        Map<String, Object> networks = new LinkedHashMap<>();
+        byNetwork.forEach((network, t) -> networks.put(network, t.toMap()));
+        response.put("by_card_network", networks);
+        response.put("buckets", byBucket.entrySet().stream().map(entry -> {
+            Map<String, Object> bucket = new LinkedHashMap<>();
+            bucket.put("bucket_start", entry.getKey());
+            bucket.putAll(entry.getValue().toMap());
+            return bucket;
+        }).toList());
+        return ResponseEntity.ok(response);
+    }
+
+    private static final class Totals {
+        long payments;
+        long successful;
+        long failed;
+        long volume;
+
+        void add(PaymentStatsRollup rollup) {
+            payments += rollup.getCreatedCount();
+            successful += rollup.getSuccessCount();
+            failed += rollup.getFailedCount();
+            volume += rollup.getSuccessVolume();
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("payments", payments);
+            map.put("successful", successful);
+            map.put("failed", failed);
+            long settled = successful + failed;
+            map.put("success_rate", settled == 0 ? 0.0 : (double) successful / settled);
+            map.put("volume", volume);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.gateway.controllers;
+
+import com.gateway.cache.ReadThroughCache;
+import com.gateway.cache.TtlCache;
+import com.gateway.models.Order;
+import com.gateway.models.Payment;
+import com.gateway.ratelimit.AdaptiveConcurrencyLimiter;
+import com.gateway.ratelimit.RateLimitInterceptor;
+import com.gateway.ratelimit.RateLimiter;
+import com.gateway.services.AuthenticationService;
+import com.gateway.services.PaymentEventBus;
+import com.gateway.services.SettlementEngine;
+import com.gateway.services.WebhookDispatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+public class MetricsController {
+
+    @Autowired
+    private SettlementEngine settlementEngine;
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private WebhookDispatcher webhookDispatcher;
+
+    @Autowired
+    private PaymentEventBus paymentEventBus;
+
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    @Autowired
+    private ReadThroughCache<Order> orderCache;
+
+    @Autowired
+    private ReadThroughCache<Payment> paymentCache;
+
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> metrics() {
+        Map<String, Object> settlement = new LinkedHashMap<>();
+        settlement.put("lease_owner", settlementEngine.getLeaseOwner());
+        settlement.put("in_flight", settlementEngine.getInFlight());
+        settlement.put("in_flight_upi", settlementEngine.getInFlight("upi"));
+        settlement.put("in_flight_card", settlementEngine.getInFlight("card"));
+        settlement.put("pending_writes", settlementEngine.getPendingWrites());
+        settlement.put("settled_total", settlementEngine.getSettledCount());
+        settlement.put("recovered_total", settlementEngine.getRecoveredCount());
+        settlement.put("claim_failures_total", settlementEngine.getClaimFailureCount());
+        settlement.put("write_failures_total", settlementEngine.getWriteFailureCount());
+        settlement.put("write_conflicts_total", settlementEngine.getConflictCount());
+        settlement.put("last_lag_ms", settlementEngine.getLastLagMillis());
+        settlement.put("max_lag_ms", settlementEngine.getMaxLagMillis());
+        settlement.put("backlog", settlementEngine.getBacklog());
+        settlement.put("backlog_lag_ms", settlementEngine.getBacklogLagMillis());
+        settlement.put("rejected_total", settlementEngine.getRejectedCount());
+
+        TtlCache<String, ?> credentials = authenticationService.getCache();
+        Map<String, Object> authCache = new LinkedHashMap<>();
+        authCache.put("size", credentials.size());
+        authCache.put("hits_total", credentials.getHitCount());
+        authCache.put("negative_hits_total", authenticationService.getNegativeHitCount());
+        authCache.put("misses_total", credentials.getMissCount());
+        authCache.put("evictions_total", credentials.getEvictionCount());
+
+        Map<String, Object> webhooks = new LinkedHashMap<>();
+        webhooks.put("in_flight", webhookDispatcher.getInFlight());
+        webhooks.put("delivered_total", webhookDispatcher.getDeliveredCount());
+        webhooks.put("retried_total", webhookDispatcher.getRetriedCount());
+        webhooks.put("failed_total", webhookDispatcher.getFailedCount());
+        webhooks.put("last_latency_ms", webhookDispatcher.getLastLatencyMillis());
+
+        RateLimiter rateLimiter = rateLimitInterceptor.getRateLimiter();
+        AdaptiveConcurrencyLimiter concurrency = rateLimitInterceptor.getConcurrencyLimiter();
+        Map<String, Object> limits = new LinkedHashMap<>();
+        limits.put("buckets", rateLimiter.size());
+        limits.put("rate_limited_total", rateLimiter.getRejectedCount());
+        limits.put("buckets_dropped_total", rateLimiter.getDroppedCount());
+        limits.put("concurrency_limit", concurrency.getLimit());
+        limits.put("concurrency_in_flight", concurrency.getInFlight());
+        limits.put("shed_total", concurrency.getShedCount());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("settlement", settlement);
+        response.put("auth_cache", authCache);
+        response.put("webhooks", webhooks);
+        response.put("limits", limits);
+        response.put("events", Map.of("subscribers", paymentEventBus.getSubscriberCount()));
+        response.put("caches", Map.of(
+                orderCache.getName(), cacheStats(orderCache),
+                paymentCache.getName(), cacheStats(paymentCache)));
+        return ResponseEntity.ok(response);
+    }
+
+    private static Map<String, Object> cacheStats(ReadThroughCache<?> cache) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits_total", cache.getHitCount());
+        stats.put("misses_total", cache.getMissCount());
+        stats.put("hit_ratio", cache.getHitRatio());
+        stats.put("avg_hit_us", cache.getAverageHitMicros());
+        stats.put("avg_miss_us", cache.getAverageMissMicros());
+        return stats;
+    }
+}
@@ -1,15 +1,28 @@
 package com.gateway.controllers;
 
+import com.gateway.dto.CreateOrderRequest;
+import com.gateway.dto.CreateOrdersRequest;
+import com.gateway.dto.CursorPage;
+import com.gateway.dto.ListFilter;
+import com.gateway.dto.PageCursor;
+import com.gateway.json.ApiError;
 import com.gateway.models.Merchant;
 import com.gateway.models.Order;
-import com.gateway.repositories.MerchantRepository;
-import com.gateway.repositories.OrderRepository;
+import com.gateway.ratelimit.RateLimited;
+import com.gateway.services.AuthenticationService;
+import com.gateway.services.IdempotencyService;
 import com.gateway.services.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -17,48 +30,184 @@ import java.util.Optional;
 @RequestMapping("/api/v1")
 public class OrderController {
  
+ private static final int IDEMPOTENCY_KEY_MAX_LENGTH = 255;
+ private static final int MAX_PAGE_SIZE = 100;
+ 
+ private static final ApiError INVALID_AMOUNT = ApiError.badRequest("amount must be at least 100");
+ private static final ApiError INVALID_LIMIT = ApiError.badRequest("limit must be between 1 and " + MAX_PAGE_SIZE);
+ 
  @Autowired
  private OrderService orderService;
  
  @Autowired
- private MerchantRepository merchantRepository;
+ private AuthenticationService authenticationService;
  
  @Autowired
- private OrderRepository orderRepository;
+ private IdempotencyService idempotencyService;
+ 
+ @Value("${gateway.orders.batch.max-size:1000}")
+ private int maxBatchSize;
  
  @PostMapping("/orders")
+ @RateLimited("orders.create")
  public ResponseEntity<?> createOrder(
  @RequestHeader(value="X-Api-Key", required=false) String apiKey,
  @RequestHeader(value="X-Api-Secret", required=false) String apiSecret,
- @RequestBody Map<String, Object> request) {
+ @RequestHeader(value="Idempotency-Key", required=false) String idempotencyKey,
+ @RequestBody CreateOrderRequest request) {
  
  if (apiKey == null || apiSecret == null) {
  return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
- .body(Map.of("error", Map.of("code", "AUTHENTICATION_ERROR", "description", "Missing API credentials")));
+ .body(ApiError.MISSING_CREDENTIALS);
  }
  
- Optional<Merchant> merchant = merchantRepository.findByApiKey(apiKey);
- if (merchant.isEmpty() || !merchant.get().getApiSecret().equals(apiSecret)) {
+ Optional<Merchant> merchant = authenticationService.authenticate(apiKey, apiSecret);
+ if (merchant.isEmpty()) {
  return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
- .body(Map.of("error", Map.of("code", "AUTHENTICATION_ERROR", "description", "Invalid API credentials")));
+ .body(ApiError.INVALID_CREDENTIALS);
  }
  
- Integer amount = null;
- if (request.get("amount") instanceof Integer) {
- amount = (Integer) request.get("amount");
- } else if (request.get("amount") instanceof Double) {
- amount = ((Double) request.get("amount")).intValue();
+ if (idempotencyKey == null) {
+ return createOrder(merchant.get(), request);
+ }
+ if (idempotencyKey.isEmpty() || idempotencyKey.length() > IDEMPOTENCY_KEY_MAX_LENGTH) {
+ return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+ .body(ApiError.INVALID_IDEMPOTENCY_KEY);
+ }
+ return idempotencyService.execute(merchant.get().getId(), "orders", idempotencyKey, request,
+ () -> createOrder(merchant.get(), request));
  }
  
- if (amount == null || amount < 100) {
+ private ResponseEntity<?> createOrder(Merchant merchant, CreateOrderRequest request) {
+ if (!isValidAmount(request.getAmount())) {
  return ResponseEntity.status(HttpStatus.BAD_REQUEST)
- .body(Map.of("error", Map.of("code", "BAD_REQUEST_ERROR", "description", "amount must be at least 100")));
+ .body(INVALID_AMOUNT);
  }
  
- Order order = orderService.createOrder(merchant.get().getId(), request);
+ Order order = orderService.createOrder(merchant.getId(), request);
  return ResponseEntity.status(HttpStatus.CREATED).body(order);
  }
  
+ @PostMapping("/orders/batch")
+ @RateLimited("orders.batch")
+ public ResponseEntity<?> createOrders(
+ @RequestHeader(value="X-Api-Key", required=false) String apiKey,
+ @RequestHeader(value="X-Api-Secret", required=false) String apiSecret,
+ @RequestBody CreateOrdersRequest request) {
+ 
+ if (apiKey == null || apiSecret == null) {
+ return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+ .body(ApiError.MISSING_CREDENTIALS);
+ }
+ 
+ Optional<Merchant> merchant = authenticationService.authenticate(apiKey, apiSecret);
+ if (merchant.isEmpty()) {
+ return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+ .body(ApiError.INVALID_CREDENTIALS);
+ }
+ 
+ List<CreateOrderRequest> items = request.getOrders();
+ if (items == null || items.isEmpty() || items.size() > maxBatchSize) {
+ return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+ .body(ApiError.badRequest("orders must contain between 1 and " + maxBatchSize + " items"));
+ }
+ 
+ // Validate everything up front, then persist the valid orders in one transaction.
+ List<Map<String, Object>> results = new ArrayList<>(items.size());
+ List<CreateOrderRequest> valid = new ArrayList<>(items.size());
+ List<Map<String, Object>> validResults = new ArrayList<>(items.size());
+ for (int i = 0; i < items.size(); i++) {
+ Map<String, Object> result = new LinkedHashMap<>();
+ result.put("index", i);
+ results.add(result);
+ 
+ String error = null;
+ CreateOrderRequest item = items.get(i);
+ if (item == null) {
+ error = "order must be an object";
+ } else if (!isValidAmount(item.getAmount())) {
+ error = "amount must be at least 100";
+ } else {
+ valid.add(item);
+ validResults.add(result);
+ }
+ 
+ if (error != null) {
+ result.put("status", "failed");
+ result.put("error", Map.of("code", "BAD_REQUEST_ERROR", "description", error));
+ }
+ }
+ 
+ List<Order> orders = valid.isEmpty() ? List.of() : orderService.createOrders(merchant.get().getId(), valid);
+ for (int i = 0; i < orders.size(); i++) {
+ validResults.get(i).put("status", "created");
+ validResults.get(i).put("order", orders.get(i));
+ }
+ 
+ HttpStatus status = orders.size() == items.size() ? HttpStatus.CREATED
+ : orders.isEmpty() ? HttpStatus.BAD_REQUEST : HttpStatus.MULTI_STATUS;
+ Map<String, Object> response = new LinkedHashMap<>();
+ response.put("count", items.size());
+ response.put("created", orders.size());
+ response.put("failed", items.size() - orders.size());
+ response.put("items", results);
+ return ResponseEntity.status(status).body(response);
+ }
+ 
+ @GetMapping("/orders")
+ @RateLimited("orders.list")
+ public ResponseEntity<?> listOrders(
+ @RequestHeader(value="X-Api-Key", required=false) String apiKey,
+ @RequestHeader(value="X-Api-Secret", required=false) String apiSecret,
+ @RequestParam(value="limit", defaultValue="20") int limit,
+ @RequestParam(value="cursor", required=false) String cursor,
+ @RequestParam(value="status", required=false) String status,
+ @RequestParam(value="from", required=false) String from,
+ @RequestParam(value="to", required=false) String to) {
+ 
+ if (apiKey == null || apiSecret == null) {
+ return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+ .body(ApiError.MISSING_CREDENTIALS);
+ }
+ 
+ Optional<Merchant> merchant = authenticationService.authenticate(apiKey, apiSecret);
+ if (merchant.isEmpty()) {
+ return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+ .body(ApiError.INVALID_CREDENTIALS);
+ }
+ 
+ if (limit < 1 || limit > MAX_PAGE_SIZE) {
+ return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+ .body(INVALID_LIMIT);
+ }
+ 
+ PageCursor after = null;
+ if (cursor != null) {
+ after = PageCursor.decode(cursor);
+ if (after == null) {
+ return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+ .body(ApiError.INVALID_CURSOR);
+ }
+ }
+ 
+ ListFilter filter;
+ try {
+ filter = new ListFilter(status, null,
+ from != null ? LocalDateTime.parse(from) : null,
+ to != null ? LocalDateTime.parse(to) : null);
+ } catch (DateTimeParseException e) {
+ return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+ .body(ApiError.INVALID_DATE_TIME);
+ }
+ 
+ CursorPage<Order> page = orderService.listOrders(merchant.get().getId(), filter, after, limit);
+ Map<String, Object> response = new LinkedHashMap<>();
+ response.put("items", page.items());
+ response.put("has_more", page.nextCursor() != null);
+ response.put("next_cursor", page.nextCursor());
+ return ResponseEntity.ok(response);
+ }
+ 
  @GetMapping("/orders/{order_id}")
  public ResponseEntity<?> getOrder(
  @PathVariable("order_id") String orderId,
@@ -67,21 +216,25 @@ public class OrderController {
  
  if (apiKey == null || apiSecret == null) {
  return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
- .body(Map.of("error", Map.of("code", "AUTHENTICATION_ERROR", "description", "Missing API credentials")));
+ .body(ApiError.MISSING_CREDENTIALS);
  }
  
- Optional<Merchant> merchant = merchantRepository.findByApiKey(apiKey);
- if (merchant.isEmpty() || !merchant.get().getApiSecret().equals(apiSecret)) {
+ Optional<Merchant> merchant = authenticationService.authenticate(apiKey, apiSecret);
+ if (merchant.isEmpty()) {
  return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
- .body(Map.of("error", Map.of("code", "AUTHENTICATION_ERROR", "description", "Invalid API credentials")));
+ .body(ApiError.INVALID_CREDENTIALS);
  }
  
- Optional<Order> order = orderRepository.findByIdAndMerchantId(orderId, merchant.get().getId());
+ Optional<Order> order = orderService.findOrder(orderId, merchant.get().getId());
  if (order.isEmpty()) {
  return ResponseEntity.status(HttpStatus.NOT_FOUND)
- .body(Map.of("error", Map.of("code", "NOT_FOUND_ERROR", "description", "Order not found")));
+ .body(ApiError.ORDER_NOT_FOUND);
  }
  
  return ResponseEntity.ok(order.get());
  }
+ 
+ private static boolean isValidAmount(Integer amount) {
+ return amount != null && amount >= 100;
+ }
 }
@@ -1,33 +1,77 @@
 package com.gateway.controllers;
 
+import com.gateway.datasource.ReplicaReads;
+import com.gateway.dto.CreatePaymentRequest;
+import com.gateway.dto.CursorPage;
+import com.gateway.dto.ListFilter;
+import com.gateway.dto.PageCursor;
+import com.gateway.json.ApiError;
 import com.gateway.models.Merchant;
 import com.gateway.models.Order;
 import com.gateway.models.Payment;
-import com.gateway.repositories.MerchantRepository;
-import com.gateway.repositories.OrderRepository;
+import com.gateway.ratelimit.ConcurrencyLimited;
+import com.gateway.ratelimit.RateLimited;
 import com.gateway.repositories.PaymentRepository;
+import com.gateway.services.AuthenticationService;
+import com.gateway.services.IdempotencyService;
+import com.gateway.services.OrderService;
+import com.gateway.services.PaymentEventBus;
+import com.gateway.services.PaymentExportService;
 import com.gateway.services.PaymentService;
+import com.gateway.services.SettlementCapacityException;
 import com.gateway.services.ValidationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1")
 public class PaymentController {
 
+    private static final int IDEMPOTENCY_KEY_MAX_LENGTH = 255;
+    private static final long MAX_WAIT_MILLIS = 60_000;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final ApiError MISSING_ORDER_ID = ApiError.badRequest("order_id is required");
+    private static final ApiError ORDER_NOT_OWNED = ApiError.badRequest("Order does not belong to this merchant");
+    private static final ApiError ORDER_ALREADY_PAID = ApiError.badRequest("Order is already paid");
+    private static final ApiError INVALID_METHOD = ApiError.badRequest("Invalid payment method");
+    private static final ApiError INVALID_VPA = ApiError.of("INVALID_VPA", "VPA format invalid");
+    private static final ApiError INVALID_CARD = ApiError.of("INVALID_CARD", "Card validation failed");
+    private static final ApiError EXPIRED_CARD = ApiError.of("EXPIRED_CARD", "Card expiry date invalid");
+    private static final ApiError INVALID_LIMIT = ApiError.badRequest("limit must be between 1 and " + MAX_PAGE_SIZE);
+    private static final ApiError INVALID_EXPORT_FORMAT = ApiError.badRequest("format must be csv or ndjson");
+    private static final ApiError MISSING_RANGE = ApiError.badRequest("from and to are required");
+    private static final ApiError EMPTY_RANGE = ApiError.badRequest("from must be before to");
+    private static final ApiError PAYMENT_NOT_OWNED = ApiError.badRequest("Payment does not belong to this merchant");
+    private static final ApiError INVALID_WAIT = ApiError.badRequest("wait must be between 0s and 60s");
+    private static final ApiError SETTLEMENT_BUSY = ApiError.of(ApiError.SERVICE_UNAVAILABLE_ERROR, "Settlement is behind, retry later");
+
     @Autowired
     private PaymentService paymentService;
 
     @Autowired
-    private MerchantRepository merchantRepository;
+    private AuthenticationService authenticationService;
 
     @Autowired
-    private OrderRepository orderRepository;
+    private OrderService orderService;
 
     @Autowired
     private PaymentRepository paymentRepository;
@@ -35,78 +79,350 @@ public class PaymentController {
     @Autowired
     private ValidationService validationService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PaymentEventBus paymentEventBus;
+
+    @Autowired
+    private PaymentExportService paymentExportService;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
+    @Value("${gateway.events.sse-timeout-ms:300000}")
+    private long sseTimeoutMillis;
+
     @PostMapping("/payments")
-    public ResponseEntity<Map> createPayment(
+    @RateLimited("payments.create")
+    public ResponseEntity<?> createPayment(
             @RequestHeader(value="X-Api-Key", required=false) String apiKey,
             @RequestHeader(value="X-Api-Secret", required=false) String apiSecret,
-            @RequestBody Map<String, Object> request) {
+            @RequestHeader(value="Idempotency-Key", required=false) String idempotencyKey,
+            @RequestBody CreatePaymentRequest request) {
 
         if (apiKey == null || apiSecret == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("error", Map.of("code", "AUTHENTICATION_ERROR", "description", "Missing API credentials")));
+                    .body(ApiError.MISSING_CREDENTIALS);
         }
 
-        Optional<Merchant> merchant = merchantRepository.findByApiKey(apiKey);
-        if (merchant.isEmpty() || !merchant.get().getApiSecret().equals(apiSecret)) {
+        Optional<Merchant> merchant = authenticationService.authenticate(apiKey, apiSecret);
+        if (merchant.isEmpty()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("error", Map.of("code", "AUTHENTICATION_ERROR", "description", "Invalid API credentials")));
+                    .body(ApiError.INVALID_CREDENTIALS);
         }
 
-        String orderId = (String) request.get("order_id");
+        if (idempotencyKey == null) {
+            return createPayment(merchant.get(), request);
+        }
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > IDEMPOTENCY_KEY_MAX_LENGTH) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiError.INVALID_IDEMPOTENCY_KEY);
+        }
+        return idempotencyService.execute(merchant.get().getId(), "payments", idempotencyKey, request,
+                () -> createPayment(merchant.get(), request));
+    }
+
+    private ResponseEntity<?> createPayment(Merchant merchant, CreatePaymentRequest request) {
+        // Body checks first; they need neither the cache nor the database.
+        String orderId = request.getOrderId();
         if (orderId == null || orderId.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("error", Map.of("code", "BAD_REQUEST_ERROR", "description", "order_id is required")));
+                    .body(MISSING_ORDER_ID);
         }
 
-        Optional<Order> order = orderRepository.findById(orderId);
+        String method = request.getMethod();
+        if ("upi".equals(method)) {
+            if (!validationService.validateVPA(request.getVpa())) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(INVALID_VPA);
+            }
+        } else if ("card".equals(method)) {
+            CreatePaymentRequest.Card card = request.getCard();
+            if (card == null || validationService.inspectCard(card.getNumber()) == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(INVALID_CARD);
+            }
+            if (!validationService.validateCardExpiry(card.getExpiryMonth(), card.getExpiryYear())) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(EXPIRED_CARD);
+            }
+        } else {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(INVALID_METHOD);
+        }
+
+        // Before any database work, and before markAttempted so a refused request leaves the order as it was.
+        try {
+            paymentService.checkSettlementCapacity();
+        } catch (SettlementCapacityException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(SETTLEMENT_BUSY);
+        }
+
+        Optional<Order> order = orderService.findOrder(orderId);
         if (order.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("error", Map.of("code", "NOT_FOUND_ERROR", "description", "Order not found")));
+                    .body(ApiError.ORDER_NOT_FOUND);
         }
 
-        if (!order.get().getMerchantId().equals(merchant.get().getId())) {
+        if (!order.get().getMerchantId().equals(merchant.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body(Map.of("error", Map.of("code", "BAD_REQUEST_ERROR", "description", "Order does not belong to this merchant")));
+                    .body(ORDER_NOT_OWNED);
         }
 
-        String method = (String) request.get("method");
-        if (method == null || (!method.equals("upi") && !method.equals("card"))) {
+        // Atomic check against a concurrent success marking the order paid.
+        if (!orderService.markAttempted(order.get())) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("error", Map.of("code", "BAD_REQUEST_ERROR", "description", "Invalid payment method")));
+                    .body(ORDER_ALREADY_PAID);
         }
 
-        Payment payment = paymentService.createPayment(order.get(), method, request);
+        Payment payment = paymentService.createPayment(merchant, order.get(), request);
         return ResponseEntity.status(HttpStatus.CREATED).body(payment);
     }
 
+    @GetMapping("/payments")
+    @RateLimited("payments.list")
+    public ResponseEntity<?> listPayments(
+            @RequestHeader(value="X-Api-Key", required=false) String apiKey,
+            @RequestHeader(value="X-Api-Secret", required=false) String apiSecret,
+            @RequestParam(value="limit", defaultValue="20") int limit,
+            @RequestParam(value="cursor", required=false) String cursor,
+            @RequestParam(value="status", required=false) String status,
+            @RequestParam(value="method", required=false) String method,
+            @RequestParam(value="from", required=false) String from,
+            @RequestParam(value="to", required=false) String to) {
+
+        if (apiKey == null || apiSecret == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiError.MISSING_CREDENTIALS);
+        }
+
+        Optional<Merchant> merchant = authenticationService.authenticate(apiKey, apiSecret);
+        if (merchant.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiError.INVALID_CREDENTIALS);
+        }
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(INVALID_LIMIT);
+        }
+
+        PageCursor after = null;
+        if (cursor != null) {
+            after = PageCursor.decode(cursor);
+            if (after == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiError.INVALID_CURSOR);
+            }
+        }
+
+        ListFilter filter;
+        try {
+            filter = new ListFilter(status, method,
+                    from != null ? LocalDateTime.parse(from) : null,
+                    to != null ? LocalDateTime.parse(to) : null);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiError.INVALID_DATE_TIME);
+        }
+
+        CursorPage<Payment> page = paymentService.listPayments(merchant.get().getId(), filter, after, limit);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("items", page.items());
+        response.put("has_more", page.nextCursor() != null);
+        response.put("next_cursor", page.nextCursor());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/payments/export")
+    @RateLimited("payments.export")
+    @ConcurrencyLimited("payments.export")
+    public ResponseEntity<?> exportPayments(
+            @RequestHeader(value="X-Api-Key", required=false) String apiKey,
+            @RequestHeader(value="X-Api-Secret", required=false) String apiSecret,
+            @RequestHeader(value=HttpHeaders.ACCEPT_ENCODING, required=false) String acceptEncoding,
+            @RequestParam(value="format", defaultValue="csv") String format,
+            @RequestParam(value="from", required=false) String from,
+            @RequestParam(value="to", required=false) String to) {
+
+        if (apiKey == null || apiSecret == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiError.MISSING_CREDENTIALS);
+        }
+
+        Optional<Merchant> merchant = authenticationService.authenticate(apiKey, apiSecret);
+        if (merchant.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiError.INVALID_CREDENTIALS);
+        }
+
+        if (!PaymentExportService.CSV.equals(format) && !PaymentExportService.NDJSON.equals(format)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(INVALID_EXPORT_FORMAT);
+        }
+
+        if (from == null || to == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(MISSING_RANGE);
+        }
+        LocalDateTime start;
+        LocalDateTime end;
+        try {
+            start = LocalDateTime.parse(from);
+            end = LocalDateTime.parse(to);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiError.INVALID_DATE_TIME);
+        }
+        if (!start.isBefore(end)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(EMPTY_RANGE);
+        }
+
+        UUID merchantId = merchant.get().getId();
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 65536);
+                paymentExportService.export(merchantId, start, end, format, compressed);
+                compressed.finish();
+            } else {
+                paymentExportService.export(merchantId, start, end, format, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(PaymentExportService.CSV.equals(format)
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"payments." + format + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     @GetMapping("/payments/{paymentId}")
-    public ResponseEntity<Map> getPayment(
+    public ResponseEntity<?> getPayment(
             @PathVariable("paymentId") String paymentId,
             @RequestHeader(value="X-Api-Key", required=false) String apiKey,
             @RequestHeader(value="X-Api-Secret", required=false) String apiSecret) {
 
         if (apiKey == null || apiSecret == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("error", Map.of("code", "AUTHENTICATION_ERROR", "description", "Missing API credentials")));
+                    .body(ApiError.MISSING_CREDENTIALS);
         }
 
-        Optional<Merchant> merchant = merchantRepository.findByApiKey(apiKey);
-        if (merchant.isEmpty() || !merchant.get().getApiSecret().equals(apiSecret)) {
+        Optional<Merchant> merchant = authenticationService.authenticate(apiKey, apiSecret);
+        if (merchant.isEmpty()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("error", Map.of("code", "AUTHENTICATION_ERROR", "description", "Invalid API credentials")));
+                    .body(ApiError.INVALID_CREDENTIALS);
         }
 
-        Optional<Payment> payment = paymentRepository.findById(paymentId);
+        Optional<Payment> payment = paymentService.findPayment(paymentId);
         if (payment.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("error", Map.of("code", "NOT_FOUND_ERROR", "description", "Payment not found")));
+                    .body(ApiError.PAYMENT_NOT_FOUND);
         }
 
         if (!payment.get().getMerchantId().equals(merchant.get().getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body(Map.of("error", Map.of("code", "BAD_REQUEST_ERROR", "description", "Payment does not belong to this merchant")));
+                    .body(PAYMENT_NOT_OWNED);
         }
 
         return ResponseEntity.ok(payment.get());
     }
+
+    @GetMapping(value = "/payments/{paymentId}", params = "wait")
+    public Object waitForPayment(
+            @PathVariable("paymentId") String paymentId,
+            @RequestParam("wait") String wait,
+            @RequestHeader(value="X-Api-Key", required=false) String apiKey,
+            @RequestHeader(value="X-Api-Secret", required=false) String apiSecret) {
+
+        long waitMillis = parseWait(wait);
+        if (waitMillis < 0 || waitMillis > MAX_WAIT_MILLIS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(INVALID_WAIT);
+        }
+
+        ResponseEntity<?> current = getPayment(paymentId, apiKey, apiSecret);
+        if (!(current.getBody() instanceof Payment payment) || PaymentEventBus.isTerminal(payment.getStatus()) || waitMillis == 0) {
+            return current;
+        }
+
+        // Held without a thread: the settlement writer completes the result when it publishes.
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(waitMillis, current);
+        Runnable unsubscribe = paymentEventBus.subscribe(paymentId, updated -> {
+            if (!updated.getStatus().equals(payment.getStatus())) {
+                result.setResult(ResponseEntity.ok(updated));
+            }
+        });
+        result.onCompletion(unsubscribe);
+
+        // Re-read after subscribing so a change published in between is not missed; on the
+        // primary, since a lagging replica could still show the old status.
+        replicaReads.onPrimary(() -> paymentRepository.findByIdPruned(paymentId))
+                .filter(latest -> !latest.getStatus().equals(payment.getStatus()))
+                .ifPresent(latest -> result.setResult(ResponseEntity.ok(latest)));
+        return result;
+    }
+
+    @GetMapping("/payments/{paymentId}/events")
+    public Object streamPaymentEvents(
+            @PathVariable("paymentId") String paymentId,
+            @RequestHeader(value="X-Api-Key", required=false) String apiKey,
+            @RequestHeader(value="X-Api-Secret", required=false) String apiSecret) {
+
+        ResponseEntity<?> current = getPayment(paymentId, apiKey, apiSecret);
+        if (!(current.getBody() instanceof Payment payment)) {
+            return current;
+        }
+
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        // Writes to the client can block, so they go through a per-stream queue rather than
+        // running on the settlement writer that publishes the event. The initial state goes
+        // through the same queue to keep the events in order.
+        Consumer<Payment> sender = paymentEventBus.serialized(updated -> sendPaymentEvent(emitter, updated));
+        Runnable unsubscribe = paymentEventBus.subscribe(paymentId, sender);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> unsubscribe.run());
+
+        sender.accept(replicaReads.onPrimary(() -> paymentRepository.findByIdPruned(paymentId)).orElse(payment));
+        return emitter;
+    }
+
+    private static void sendPaymentEvent(SseEmitter emitter, Payment payment) {
+        try {
+            emitter.send(SseEmitter.event().name("payment").data(payment, MediaType.APPLICATION_JSON));
+            if (PaymentEventBus.isTerminal(payment.getStatus())) {
+                emitter.complete();
+            }
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        } catch (IllegalStateException e) {
+            // Already completed by an earlier terminal event.
+        }
+    }
+
+    // Accepts "30s", "500ms" or a bare number of seconds.
+    private static long parseWait(String wait) {
+        try {
+            if (wait.endsWith("ms")) {
+                return Long.parseLong(wait.substring(0, wait.length() - 2));
+            }
+            if (wait.endsWith("s")) {
+                return Long.parseLong(wait.substring(0, wait.length() - 1)) * 1000;
+            }
+            return Long.parseLong(wait) * 1000;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 }
@@ -0,0 +1,65 @@
+package com.gateway.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * One read replica's pool and its state as of the last health check.
+ */
+public class Replica {
+
+    private final String name;
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean healthy;
+    // System.nanoTime() at which the primary's WAL position was sampled that this replica has
+    // since replayed: every transaction committed before then is visible on it.
+    private volatile long visibleAsOf;
+    private volatile long lagMillis = -1;
+
+    public Replica(String name, HikariDataSource dataSource, int checkTimeoutSeconds) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setQueryTimeout(checkTimeoutSeconds);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /**
+     * Replication lag as of the last health check; -1 while it is unknown.
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    HikariDataSource getDataSource() {
+        return dataSource;
+    }
+
+    JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    boolean isVisibleSince(long nanos) {
+        return visibleAsOf - nanos > 0;
+    }
+
+    void caughtUp(long visibleAsOf, long now) {
+        this.visibleAsOf = visibleAsOf;
+        this.lagMillis = Math.max(0, (now - visibleAsOf) / 1_000_000);
+        this.healthy = true;
+    }
+
+    void down() {
+        healthy = false;
+        lagMillis = -1;
+    }
+}
@@ -0,0 +1,85 @@
+package com.gateway.datasource;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Read-your-writes on top of {@link ReplicaRoutingDataSource}.
+ *
+ * Each method only affects transactions whose first statement runs inside it, so they can
+ * wrap a repository call or the body of a {@code @Transactional(readOnly = true)} method.
+ * {@link #find} and {@link #forMerchant} run their read in a read-only transaction, joining
+ * the caller's if there is one: Spring Data gives declared query methods (findByApiKey, the
+ * pruned lookups) no transaction of their own, and without one the read goes to the primary.
+ */
+@Component
+public class ReplicaReads {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Merchant id -> System.nanoTime() after its last write on this node committed.
+    private final ConcurrentHashMap<UUID, Long> lastWrites = new ConcurrentHashMap<>();
+    private final LongAdder primaryRetries = new LongAdder();
+
+    private TransactionTemplate readOnly;
+
+    @PostConstruct
+    public void init() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    /**
+     * Notes a write by the merchant, as of the commit of the current transaction if there is one.
+     */
+    public void recordWrite(UUID merchantId) {
+        AfterCommit.run(() -> lastWrites.put(merchantId, System.nanoTime()));
+    }
+
+    /**
+     * Runs a read of the merchant's data on a replica only if it has replayed the merchant's
+     * writes through this node; otherwise on the primary.
+     */
+    public <T> T forMerchant(UUID merchantId, Supplier<T> read) {
+        Long lastWrite = lastWrites.get(merchantId);
+        return lastWrite == null ? readOnly(read) : ReplicaRoutingDataSource.visibleSince(lastWrite, () -> readOnly(read));
+    }
+
+    /**
+     * Looks a row up by id, and again on the primary if a replica did not find it: the id may
+     * come from a write (on any node) that the replica has not replayed yet.
+     */
+    public <T> Optional<T> find(Supplier<Optional<T>> lookup) {
+        ReplicaRoutingDataSource.clearRouted();
+        Optional<T> found = readOnly(lookup);
+        if (found.isEmpty() && ReplicaRoutingDataSource.routedToReplica()) {
+            primaryRetries.increment();
+            return onPrimary(() -> readOnly(lookup));
+        }
+        return found;
+    }
+
+    /**
+     * Runs a read that must see every committed write, such as a check before a write.
+     */
+    public <T> T onPrimary(Supplier<T> read) {
+        return ReplicaRoutingDataSource.primaryOnly(read);
+    }
+
+    private <T> T readOnly(Supplier<T> read) {
+        return readOnly.execute(status -> read.get());
+    }
+
+    public long getPrimaryRetryCount() {
+        return primaryRetries.sum();
+    }
+}
@@ -0,0 +1,258 @@
+package com.gateway.datasource;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to a healthy replica, round robin, and everything else to the
+ * primary. It must sit behind a {@code LazyConnectionDataSourceProxy}, so the target is chosen
+ * at a transaction's first statement, once its read-only flag is bound.
+ *
+ * Each health check samples the primary's WAL position, then reads how far each replica has
+ * replayed. A replica that has replayed a position sampled at time T shows every transaction
+ * committed before T; it stays in rotation while T is within max-lag of now. A replica that
+ * fails its check, is not in recovery (promoted), or falls further behind is skipped until a
+ * later check passes, and so is one whose connection attempt fails; the read then runs on the
+ * primary. Callers narrow the choice further through {@link ReplicaReads}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+
+    private static final String PRIMARY_POSITION = "SELECT (pg_current_wal_lsn() - '0/0'::pg_lsn)::bigint";
+
+    private static final String REPLICA_POSITION = "SELECT pg_is_in_recovery() AS in_recovery, "
+            + "(pg_last_wal_replay_lsn() - '0/0'::pg_lsn)::bigint AS replayed";
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+    private static final ThreadLocal<Long> VISIBLE_SINCE = new ThreadLocal<>();
+    private static final ThreadLocal<Replica> ROUTED = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final List<Replica> replicas;
+    private final long maxLagNanos;
+    private final long checkIntervalMs;
+
+    private final AtomicInteger next = new AtomicInteger();
+    // {sampled at (nanoTime), WAL position} of the primary, oldest first; health checker only.
+    private final Deque<long[]> primaryPositions = new ArrayDeque<>();
+    private ScheduledExecutorService checker;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryFallbacks = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder checkFailures = new LongAdder();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, long maxLagMs, long checkIntervalMs,
+                                    int checkTimeoutSeconds) {
+        this.primary = primary;
+        this.primaryJdbcTemplate = new JdbcTemplate(primary);
+        this.primaryJdbcTemplate.setQueryTimeout(checkTimeoutSeconds);
+        this.replicas = List.copyOf(replicas);
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMs);
+        this.checkIntervalMs = checkIntervalMs;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (Replica replica : this.replicas) {
+            targets.put(replica.getName(), replica.getDataSource());
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::check, 0, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            replica.getDataSource().close();
+        }
+    }
+
+    /**
+     * Runs {@code read} with every transaction it starts on the primary.
+     */
+    static <T> T primaryOnly(Supplier<T> read) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            restore(PRIMARY_ONLY, previous);
+        }
+    }
+
+    /**
+     * Runs {@code read} with replicas limited to those that show everything committed before
+     * {@code nanos} (a {@link System#nanoTime()} reading).
+     */
+    static <T> T visibleSince(long nanos, Supplier<T> read) {
+        Long previous = VISIBLE_SINCE.get();
+        VISIBLE_SINCE.set(previous == null ? nanos : Math.max(previous, nanos));
+        try {
+            return read.get();
+        } finally {
+            restore(VISIBLE_SINCE, previous);
+        }
+    }
+
+    /**
+     * Whether the last connection this thread obtained came from a replica.
+     */
+    static boolean routedToReplica() {
+        return ROUTED.get() != null;
+    }
+
+    static void clearRouted() {
+        ROUTED.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Replica replica = null;
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && PRIMARY_ONLY.get() == null
+                && !replicas.isEmpty()) {
+            replica = choose(VISIBLE_SINCE.get());
+            if (replica != null) {
+                replicaReads.increment();
+            } else {
+                primaryFallbacks.increment();
+            }
+        }
+        ROUTED.set(replica);
+        return replica != null ? replica.getName() : PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        try {
+            return super.getConnection();
+        } catch (SQLException e) {
+            Replica replica = ROUTED.get();
+            if (replica == null) {
+                throw e;
+            }
+            // Out of rotation until its next successful check.
+            replica.down();
+            connectFailures.increment();
+            ROUTED.remove();
+            return primary.getConnection();
+        }
+    }
+
+    private Replica choose(Long visibleSince) {
+        int size = replicas.size();
+        int first = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((first + i) % size);
+            if (replica.isHealthy() && (visibleSince == null || replica.isVisibleSince(visibleSince))) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void check() {
+        long sampledAt = System.nanoTime();
+        try {
+            Long position = primaryJdbcTemplate.queryForObject(PRIMARY_POSITION, Long.class);
+            primaryPositions.addLast(new long[]{sampledAt, position});
+        } catch (RuntimeException e) {
+            checkFailures.increment();
+        }
+        // A replica only as far as positions older than max-lag is too far behind to use.
+        while (!primaryPositions.isEmpty() && sampledAt - primaryPositions.peekFirst()[0] > maxLagNanos) {
+            primaryPositions.removeFirst();
+        }
+
+        for (Replica replica : replicas) {
+            try {
+                Map<String, Object> row = replica.getJdbcTemplate().queryForMap(REPLICA_POSITION);
+                Long visibleAsOf = visibleAsOf((Boolean) row.get("in_recovery"), (Number) row.get("replayed"));
+                if (visibleAsOf == null) {
+                    replica.down();
+                } else {
+                    replica.caughtUp(visibleAsOf, System.nanoTime());
+                }
+            } catch (RuntimeException e) {
+                checkFailures.increment();
+                replica.down();
+            }
+        }
+    }
+
+    private Long visibleAsOf(Boolean inRecovery, Number replayed) {
+        if (!Boolean.TRUE.equals(inRecovery) || replayed == null) {
+            return null;
+        }
+        Long visibleAsOf = null;
+        for (long[] sample : primaryPositions) {
+            if (sample[1] <= replayed.longValue()) {
+                visibleAsOf = sample[0];
+            }
+        }
+        return visibleAsOf;
+    }
+
+    private static <T> void restore(ThreadLocal<T> local, T previous) {
+        if (previous == null) {
+            local.remove();
+        } else {
+            local.set(previous);
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public long getReplicaReadCount() {
+        return replicaReads.sum();
+    }
+
+    public long getPrimaryFallbackCount() {
+        return primaryFallbacks.sum();
+    }
+
+    public long getConnectFailureCount() {
+        return connectFailures.sum();
+    }
+
+    public long getCheckFailureCount() {
+        return checkFailures.sum();
+    }
+}
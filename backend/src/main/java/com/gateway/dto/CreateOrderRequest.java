@@ -1,16 +1,22 @@
 package com.gateway.dto;
 
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.gateway.json.RawJsonDeserializer;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import java.util.Map;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
 public class CreateOrderRequest {
     private Integer amount;
     private String currency = "INR";
     private String receipt;
-    private Map<String, Object> notes;
+    // Free-form object, kept as its JSON text for the jsonb column.
+    @JsonDeserialize(using = RawJsonDeserializer.class)
+    private String notes;
 }
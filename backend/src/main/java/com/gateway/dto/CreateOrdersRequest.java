@@ -0,0 +1,13 @@
+package com.gateway.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateOrdersRequest {
+    private List<CreateOrderRequest> orders;
+}
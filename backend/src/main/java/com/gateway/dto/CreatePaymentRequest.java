@@ -0,0 +1,42 @@
+package com.gateway.dto;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.gateway.logging.Redaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class CreatePaymentRequest {
+    private String orderId;
+    private String method; // upi or card
+    private String vpa; // For UPI
+    private Card card; // For cards
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public static class Card {
+        // toString() shows the masked number only, so a logged request never carries card data.
+        @ToString.Exclude
+        private String number;
+        @ToString.Exclude
+        private String expiryMonth;
+        @ToString.Exclude
+        private String expiryYear;
+        @ToString.Exclude
+        private String cvv;
+        private String holderName;
+
+        @ToString.Include(name = "number")
+        private String maskedNumber() {
+            return Redaction.cardNumber(number);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.gateway.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters for the list endpoints; {@code from} is inclusive and {@code to} exclusive.
+ */
+public record ListFilter(String status, String method, LocalDateTime from, LocalDateTime to) {
+}
@@ -0,0 +1,73 @@
+package com.gateway.json;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.io.SerializedString;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An API error body, {@code {"error":{"code":...,"description":...}}}, encoded to UTF-8 once
+ * when constructed. Keep instances for fixed messages in static fields so the bytes are reused.
+ */
+public final class ApiError {
+
+    public static final String AUTHENTICATION_ERROR = "AUTHENTICATION_ERROR";
+    public static final String BAD_REQUEST_ERROR = "BAD_REQUEST_ERROR";
+    public static final String NOT_FOUND_ERROR = "NOT_FOUND_ERROR";
+    public static final String SERVICE_UNAVAILABLE_ERROR = "SERVICE_UNAVAILABLE_ERROR";
+
+    public static final ApiError MISSING_CREDENTIALS = of(AUTHENTICATION_ERROR, "Missing API credentials");
+    public static final ApiError INVALID_CREDENTIALS = of(AUTHENTICATION_ERROR, "Invalid API credentials");
+    public static final ApiError ORDER_NOT_FOUND = of(NOT_FOUND_ERROR, "Order not found");
+    public static final ApiError PAYMENT_NOT_FOUND = of(NOT_FOUND_ERROR, "Payment not found");
+    public static final ApiError INVALID_IDEMPOTENCY_KEY = badRequest("Idempotency-Key must be 1 to 255 characters");
+    public static final ApiError INVALID_CURSOR = badRequest("Invalid cursor");
+    public static final ApiError INVALID_DATE_TIME = badRequest("from and to must be ISO-8601 date-times");
+
+    private final String code;
+    private final String description;
+    private final byte[] json;
+    private final SerializedString raw;
+
+    private ApiError(String code, String description) {
+        this.code = code;
+        this.description = description;
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        String encoded = "{\"error\":{\"code\":\"" + new String(encoder.quoteAsString(code))
+                + "\",\"description\":\"" + new String(encoder.quoteAsString(description)) + "\"}}";
+        this.json = encoded.getBytes(StandardCharsets.UTF_8);
+        this.raw = new SerializedString(encoded);
+    }
+
+    public static ApiError of(String code, String description) {
+        return new ApiError(code, description);
+    }
+
+    public static ApiError badRequest(String description) {
+        return new ApiError(BAD_REQUEST_ERROR, description);
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(json);
+    }
+
+    /**
+     * The encoded body. Shared between responses; callers must not modify it.
+     */
+    byte[] bytes() {
+        return json;
+    }
+
+    SerializedString raw() {
+        return raw;
+    }
+}
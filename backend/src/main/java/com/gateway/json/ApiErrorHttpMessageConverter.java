@@ -0,0 +1,43 @@
+package com.gateway.json;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import java.io.IOException;
+
+/**
+ * Writes an {@link ApiError}'s pre-encoded bytes straight to the response body.
+ */
+public class ApiErrorHttpMessageConverter extends AbstractHttpMessageConverter<ApiError> {
+
+    public ApiErrorHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ApiError.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ApiError readInternal(Class<? extends ApiError> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ApiError is write-only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(ApiError error, MediaType contentType) {
+        return (long) error.bytes().length;
+    }
+
+    @Override
+    protected void writeInternal(ApiError error, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getBody().write(error.bytes());
+    }
+}
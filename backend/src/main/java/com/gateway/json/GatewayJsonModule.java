@@ -0,0 +1,144 @@
+package com.gateway.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.gateway.models.Order;
+import com.gateway.models.Payment;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * Hand-written serializers for the API resources. Field names are the snake_case API contract,
+ * pre-encoded once, and values are written in a fixed order without bean introspection.
+ * Registered on Spring's ObjectMapper, so responses, SSE events, webhook payloads and
+ * idempotent replays all share the same representation.
+ */
+public class GatewayJsonModule extends SimpleModule {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString ORDER_ID = new SerializedString("order_id");
+    private static final SerializedString MERCHANT_ID = new SerializedString("merchant_id");
+    private static final SerializedString AMOUNT = new SerializedString("amount");
+    private static final SerializedString CURRENCY = new SerializedString("currency");
+    private static final SerializedString RECEIPT = new SerializedString("receipt");
+    private static final SerializedString NOTES = new SerializedString("notes");
+    private static final SerializedString METHOD = new SerializedString("method");
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString VPA = new SerializedString("vpa");
+    private static final SerializedString CARD_NETWORK = new SerializedString("card_network");
+    private static final SerializedString CARD_LAST4 = new SerializedString("card_last4");
+    private static final SerializedString ERROR_CODE = new SerializedString("error_code");
+    private static final SerializedString ERROR_DESCRIPTION = new SerializedString("error_description");
+    private static final SerializedString CREATED_AT = new SerializedString("created_at");
+    private static final SerializedString UPDATED_AT = new SerializedString("updated_at");
+
+    public GatewayJsonModule() {
+        super("GatewayJsonModule");
+        addSerializer(Order.class, new OrderSerializer());
+        addSerializer(Payment.class, new PaymentSerializer());
+        addSerializer(ApiError.class, new ApiErrorSerializer());
+    }
+
+    static final class OrderSerializer extends StdSerializer<Order> {
+
+        OrderSerializer() {
+            super(Order.class);
+        }
+
+        @Override
+        public void serialize(Order order, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            writeString(gen, ID, order.getId());
+            writeUuid(gen, MERCHANT_ID, order.getMerchantId());
+            writeInteger(gen, AMOUNT, order.getAmount());
+            writeString(gen, CURRENCY, order.getCurrency());
+            writeString(gen, RECEIPT, order.getReceipt());
+            writeRawJson(gen, NOTES, order.getNotes());
+            writeString(gen, STATUS, order.getStatus());
+            writeTimestamp(gen, CREATED_AT, order.getCreatedAt());
+            writeTimestamp(gen, UPDATED_AT, order.getUpdatedAt());
+            gen.writeEndObject();
+        }
+    }
+
+    static final class PaymentSerializer extends StdSerializer<Payment> {
+
+        PaymentSerializer() {
+            super(Payment.class);
+        }
+
+        @Override
+        public void serialize(Payment payment, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            writeString(gen, ID, payment.getId());
+            writeString(gen, ORDER_ID, payment.getOrderId());
+            writeUuid(gen, MERCHANT_ID, payment.getMerchantId());
+            writeInteger(gen, AMOUNT, payment.getAmount());
+            writeString(gen, CURRENCY, payment.getCurrency());
+            writeString(gen, METHOD, payment.getMethod());
+            writeString(gen, STATUS, payment.getStatus());
+            writeString(gen, VPA, payment.getVpa());
+            writeString(gen, CARD_NETWORK, payment.getCardNetwork());
+            writeString(gen, CARD_LAST4, payment.getCardLast4());
+            writeString(gen, ERROR_CODE, payment.getErrorCode());
+            writeString(gen, ERROR_DESCRIPTION, payment.getErrorDescription());
+            writeTimestamp(gen, CREATED_AT, payment.getCreatedAt());
+            writeTimestamp(gen, UPDATED_AT, payment.getUpdatedAt());
+            gen.writeEndObject();
+        }
+    }
+
+    static final class ApiErrorSerializer extends StdSerializer<ApiError> {
+
+        ApiErrorSerializer() {
+            super(ApiError.class);
+        }
+
+        @Override
+        public void serialize(ApiError error, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeRawValue(error.raw());
+        }
+    }
+
+    private static void writeString(JsonGenerator gen, SerializedString name, String value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value);
+        }
+    }
+
+    // Stored as JSON text (jsonb), so it is written as the object it came in as.
+    private static void writeRawJson(JsonGenerator gen, SerializedString name, String json) throws IOException {
+        gen.writeFieldName(name);
+        if (json == null) {
+            gen.writeNull();
+        } else {
+            gen.writeRawValue(json);
+        }
+    }
+
+        private static void writeInteger(JsonGenerator gen, SerializedString name, Integer value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeUuid(JsonGenerator gen, SerializedString name, UUID value) throws IOException {
+        writeString(gen, name, value == null ? null : value.toString());
+    }
+
+    private static void writeTimestamp(JsonGenerator gen, SerializedString name, LocalDateTime value) throws IOException {
+        // Same format as Jackson's LocalDateTime default: seconds are always present.
+        writeString(gen, name, value == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+    }
+}
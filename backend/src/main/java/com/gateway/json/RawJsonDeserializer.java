@@ -0,0 +1,28 @@
+package com.gateway.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Reads any JSON value into its compact text form by copying tokens from the parser,
+ * without building a tree or map in between.
+ */
+public class RawJsonDeserializer extends StdDeserializer<String> {
+
+    public RawJsonDeserializer() {
+        super(String.class);
+    }
+
+    @Override
+    public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = parser.getCodec().getFactory().createGenerator(out)) {
+            generator.copyCurrentStructure(parser);
+        }
+        return out.toString();
+    }
+}
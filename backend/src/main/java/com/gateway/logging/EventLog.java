@@ -0,0 +1,152 @@
+package com.gateway.logging;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Structured events, one JSON object per line, written through the async appenders in
+ * logback-spring.xml.
+ *
+ * Audit categories ({@code gateway.audit}) record every event and are never dropped. Other
+ * categories ({@code gateway.events.<name>}) are debug-level and sampled: each keeps the
+ * fraction {@code gateway.logging.sample.<name>} of its events (default
+ * {@code gateway.logging.sample.default}), and its logger level can switch it off entirely.
+ *
+ * Callers check {@link Category#enabled()} before building an event, so a skipped event costs
+ * a level check and a random draw. Events are rendered by hand into a per-thread buffer; the
+ * only allocations per event are the line and logback's own event.
+ */
+@Component
+public class EventLog {
+
+    private static final ThreadLocal<Event> EVENTS = ThreadLocal.withInitial(Event::new);
+
+    @Autowired
+    private Environment environment;
+
+    /**
+     * A category whose events are all recorded, at INFO on {@code gateway.audit}.
+     */
+    public Category audit(String name) {
+        return new Category(name, LoggerFactory.getLogger("gateway.audit"), true, 1.0);
+    }
+
+    /**
+     * A sampled debug category on {@code gateway.events.<name>}.
+     */
+    public Category category(String name) {
+        double defaultRate = environment.getProperty("gateway.logging.sample.default", Double.class, 1.0);
+        double rate = environment.getProperty("gateway.logging.sample." + name, Double.class, defaultRate);
+        return new Category(name, LoggerFactory.getLogger("gateway.events." + name), false, rate);
+    }
+
+    public static final class Category {
+
+        private final String name;
+        private final Logger logger;
+        private final boolean audit;
+        private final double sampleRate;
+
+        Category(String name, Logger logger, boolean audit, double sampleRate) {
+            this.name = name;
+            this.logger = logger;
+            this.audit = audit;
+            this.sampleRate = sampleRate;
+        }
+
+        /**
+         * Whether to record the next event of this category; a random draw for sampled ones.
+         */
+        public boolean enabled() {
+            if (audit) {
+                return logger.isInfoEnabled();
+            }
+            return logger.isDebugEnabled()
+                    && (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+        }
+
+        /**
+         * Starts an event; add fields and finish it with {@link Event#log()} before starting
+         * another on the same thread.
+         */
+        public Event begin(String event) {
+            Event current = EVENTS.get();
+            if (current.category != null) {
+                // The per-thread buffer is in use (an event begun but not logged); don't clobber it.
+                current = new Event();
+            }
+            current.start(this, event);
+            return current;
+        }
+    }
+
+    public static final class Event {
+
+        private final StringBuilder json = new StringBuilder(512);
+        private Category category;
+
+        private void start(Category category, String event) {
+            this.category = category;
+            json.setLength(0);
+            json.append("{\"ts\":\"");
+            DateTimeFormatter.ISO_INSTANT.formatTo(Instant.now(), json);
+            json.append("\",\"category\":\"").append(category.name).append('"');
+            field("event", event);
+        }
+
+        public Event field(String name, String value) {
+            if (value != null) {
+                json.append(",\"").append(name).append("\":\"");
+                JsonStringEncoder.getInstance().quoteAsString(value, json);
+                json.append('"');
+            }
+            return this;
+        }
+
+        public Event field(String name, long value) {
+            json.append(",\"").append(name).append("\":").append(value);
+            return this;
+        }
+
+        public Event field(String name, UUID value) {
+            if (value != null) {
+                json.append(",\"").append(name).append("\":\"").append(value).append('"');
+            }
+            return this;
+        }
+
+        public Event field(String name, Integer value) {
+            if (value != null) {
+                json.append(",\"").append(name).append("\":").append(value.intValue());
+            }
+            return this;
+        }
+
+        /**
+         * Elapsed time since {@code startNanos} (a {@link System#nanoTime()} reading), in
+         * microseconds.
+         */
+        public Event latency(long startNanos) {
+            return field("latency_us", (System.nanoTime() - startNanos) / 1000);
+        }
+
+        public void log() {
+            Category target = category;
+            category = null;
+            String line = json.append('}').toString();
+            if (target.audit) {
+                target.logger.info(line);
+            } else {
+                target.logger.debug(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.gateway.logging;
+
+/**
+ * Masks payment credentials before they reach a log line or a {@code toString()}. A card
+ * number keeps only its last four digits; CVV and expiry are never written at all.
+ */
+public final class Redaction {
+
+    private Redaction() {
+    }
+
+    public static String cardNumber(String number) {
+        if (number == null) {
+            return null;
+        }
+        int keep = number.length() > 8 ? 4 : 0;
+        return "*".repeat(number.length() - keep) + number.substring(number.length() - keep);
+    }
+
+    /**
+     * Keeps the first two characters of the handle and the provider: {@code us***@okhdfcbank}.
+     */
+    public static String vpa(String vpa) {
+        if (vpa == null) {
+            return null;
+        }
+        int at = vpa.indexOf('@');
+        if (at < 0) {
+            return "***";
+        }
+        return vpa.substring(0, Math.min(2, at)) + "***" + vpa.substring(at);
+    }
+}
@@ -0,0 +1,36 @@
+package com.gateway.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    @Column(length = 320)
+    private String id; // merchant id + endpoint + Idempotency-Key header
+    
+    @Column(columnDefinition = "UUID")
+    private UUID merchantId;
+    
+    @Column(nullable = false, length = 16)
+    private String status = "completed"; // pending while the first request still runs
+    
+    @Column(length = 64)
+    private String requestHash;
+    
+    private Integer statusCode;
+    
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+    
+    @Column(columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
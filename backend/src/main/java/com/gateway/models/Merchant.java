@@ -1,5 +1,6 @@
 package com.gateway.models;
 
+import com.gateway.services.MerchantCredentialListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,6 +10,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "merchants")
+@EntityListeners(MerchantCredentialListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -13,6 +15,8 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
+    // Unique by construction (IdGenerator); the table is partitioned by month on createdAt,
+    // so its primary key is (id, created_at).
     @Id
     @Column(length = 64)
     private String id;
@@ -30,14 +34,21 @@ public class Order {
     private String receipt;
     
     @Column(columnDefinition = "jsonb")
+    @JdbcTypeCode(SqlTypes.JSON)
     private String notes;
     
     @Column(length = 20)
-    private String status = "created";
+    private String status = OrderStatus.CREATED;
     
     @Column(columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
     private LocalDateTime createdAt = LocalDateTime.now();
     
     @Column(columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
     private LocalDateTime updatedAt = LocalDateTime.now();
+    
+    // Bumped by every write, including the conditional status UPDATEs, so a save() of a stale
+    // copy fails instead of overwriting a newer status.
+    @Version
+    @Column(columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
 }
@@ -0,0 +1,34 @@
+package com.gateway.models;
+
+import java.util.Set;
+
+/**
+ * Order lifecycle: {@code created} becomes {@code attempted} when a payment is started (again
+ * for every further attempt) and {@code paid} when a payment succeeds. Failed payments leave
+ * the order {@code attempted} so it can be retried; {@code paid} is final.
+ */
+public final class OrderStatus {
+
+    public static final String CREATED = "created";
+    public static final String ATTEMPTED = "attempted";
+    public static final String PAID = "paid";
+
+    private OrderStatus() {
+    }
+
+    public static boolean canTransition(String from, String to) {
+        return sourcesOf(to).contains(from);
+    }
+
+    /**
+     * States an order may be in for a transition to {@code to}; used as the guard of a
+     * conditional UPDATE.
+     */
+    public static Set<String> sourcesOf(String to) {
+        return switch (to) {
+            case ATTEMPTED -> Set.of(CREATED, ATTEMPTED);
+            case PAID -> Set.of(CREATED, ATTEMPTED);
+            default -> Set.of();
+        };
+    }
+}
@@ -13,6 +13,8 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Payment {
+    // Unique by construction (IdGenerator), and per partition by a unique index; the table is
+    // partitioned by month on createdAt, so its primary key is (id, created_at).
     @Id
     @Column(length = 64)
     private String id;
@@ -20,6 +22,9 @@ public class Payment {
     @Column(length = 64)
     private String orderId;
     
+    // The order's partition key, so writes to the order can be pruned to its partition.
+    private LocalDateTime orderCreatedAt;
+    
     @Column(columnDefinition = "UUID")
     private UUID merchantId;
     
@@ -33,7 +38,7 @@ public class Payment {
     private String method; // upi or card
     
     @Column(length = 20)
-    private String status = "processing";
+    private String status = PaymentStatus.PROCESSING;
     
     @Column(length = 255)
     private String vpa; // For UPI
@@ -55,4 +60,19 @@ public class Payment {
     
     @Column(columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
     private LocalDateTime updatedAt = LocalDateTime.now();
+    
+    // When a processing payment is due to settle; any node may claim it from then on.
+    private LocalDateTime nextAttemptAt;
+    
+    // The node settling the payment, until its lease expires and another node may reclaim it.
+    @Column(length = 64)
+    private String leaseOwner;
+    
+    private LocalDateTime leaseExpiresAt;
+    
+    // Bumped by every write, including the conditional status UPDATEs, so a save() of a stale
+    // copy fails instead of overwriting a newer status.
+    @Version
+    @Column(columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
 }
@@ -0,0 +1,63 @@
+package com.gateway.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "payment_stats_rollup")
+@IdClass(PaymentStatsRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStatsRollup {
+    @Id
+    @Column(columnDefinition = "UUID")
+    private UUID merchantId;
+    
+    @Id
+    @Column(length = 8)
+    private String granularity; // hour or day
+    
+    @Id
+    @Column(columnDefinition = "TIMESTAMP")
+    private LocalDateTime bucketStart;
+    
+    @Id
+    @Column(length = 20)
+    private String method;
+    
+    @Id
+    @Column(length = 20)
+    private String cardNetwork; // empty for UPI
+    
+    @Column(nullable = false)
+    private Long createdCount = 0L;
+    
+    @Column(nullable = false)
+    private Long successCount = 0L;
+    
+    @Column(nullable = false)
+    private Long failedCount = 0L;
+    
+    @Column(nullable = false)
+    private Long successVolume = 0L; // paise
+    
+    @Column(columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID merchantId;
+        private String granularity;
+        private LocalDateTime bucketStart;
+        private String method;
+        private String cardNetwork;
+    }
+}
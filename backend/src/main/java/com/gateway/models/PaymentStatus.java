@@ -0,0 +1,32 @@
+package com.gateway.models;
+
+import java.util.Set;
+
+/**
+ * Payment lifecycle: {@code processing} moves once, to {@code success} or {@code failed}.
+ */
+public final class PaymentStatus {
+
+    public static final String PROCESSING = "processing";
+    public static final String SUCCESS = "success";
+    public static final String FAILED = "failed";
+
+    private PaymentStatus() {
+    }
+
+    public static boolean isTerminal(String status) {
+        return SUCCESS.equals(status) || FAILED.equals(status);
+    }
+
+    public static boolean canTransition(String from, String to) {
+        return PROCESSING.equals(from) && isTerminal(to);
+    }
+
+    /**
+     * States a payment may be in for a transition to {@code to}; used as the guard of a
+     * conditional UPDATE.
+     */
+    public static Set<String> sourcesOf(String to) {
+        return isTerminal(to) ? Set.of(PROCESSING) : Set.of();
+    }
+}
@@ -0,0 +1,52 @@
+package com.gateway.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "webhook_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookEvent {
+    @Id
+    @Column(length = 64)
+    private String id;
+    
+    @Column(columnDefinition = "UUID")
+    private UUID merchantId;
+    
+    @Column(length = 64)
+    private String paymentId;
+    
+    @Column(length = 50)
+    private String eventType; // payment.success or payment.failed
+    
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+    
+    @Column(length = 20)
+    private String status = "pending"; // pending, delivered or failed
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(columnDefinition = "TIMESTAMP")
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+    
+    @Column(columnDefinition = "TIMESTAMP")
+    private LocalDateTime deliveredAt;
+    
+    @Column(columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    @Column(columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -0,0 +1,71 @@
+package com.gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Global cap on concurrent API requests that adapts to latency (AIMD): each completion faster
+ * than the target grows the limit by one while the limit is actually being used, and a
+ * slower one shrinks it by a tenth. The handlers are bound by database round trips, so rising
+ * latency means the pool or Postgres is saturated and new work is shed instead of queued.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+    private final LongAdder shed = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long targetLatencyNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > limit.get()) {
+            inFlight.decrementAndGet();
+            shed.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Releases a slot; {@code latencyNanos} is negative when the request should not be sampled.
+     */
+    public void release(long latencyNanos) {
+        int concurrent = inFlight.getAndDecrement();
+        if (latencyNanos < 0) {
+            return;
+        }
+        if (latencyNanos > targetLatencyNanos) {
+            // At most one decrease per target interval, so a burst of slow requests that were
+            // all admitted together counts as one signal rather than collapsing the limit.
+            long now = System.nanoTime();
+            long last = lastDecrease.get();
+            if (now - last >= targetLatencyNanos && lastDecrease.compareAndSet(last, now)) {
+                limit.updateAndGet(current -> Math.max(minLimit, current - Math.max(1, current / 10)));
+            }
+        } else if (concurrent * 2 >= limit.get()) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getShedCount() {
+        return shed.sum();
+    }
+}
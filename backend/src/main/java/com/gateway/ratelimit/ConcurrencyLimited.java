@@ -0,0 +1,17 @@
+package com.gateway.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an async handler that keeps a thread and a database connection for its whole response,
+ * such as a streamed export. Such requests keep their global concurrency slot until they finish
+ * and share a fixed cap read from {@code gateway.concurrency.<name>.max-concurrent}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimited {
+    String value();
+}
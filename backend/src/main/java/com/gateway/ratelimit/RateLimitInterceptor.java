@@ -0,0 +1,201 @@
+package com.gateway.ratelimit;
+
+import com.gateway.json.ApiError;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs before the API handlers, so before credentials or anything else touch the database:
+ * a per-API-key, per-endpoint token bucket, then the global adaptive concurrency limit.
+ */
+@Component
+public class RateLimitInterceptor implements AsyncHandlerInterceptor {
+
+    public static final ApiError RATE_LIMITED = ApiError.of("RATE_LIMIT_ERROR", "Too many requests");
+    public static final ApiError OVERLOADED = ApiError.of(ApiError.SERVICE_UNAVAILABLE_ERROR, "Server is overloaded, retry shortly");
+
+    private static final String DEFAULT_LIMIT = "default";
+    private static final String STARTED_AT = RateLimitInterceptor.class.getName() + ".startedAt";
+    private static final String HELD = RateLimitInterceptor.class.getName() + ".held";
+    // Longer keys are rejected by authentication without a lookup; don't give them buckets.
+    private static final int API_KEY_MAX_LENGTH = 64;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${gateway.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gateway.ratelimit.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${gateway.ratelimit.default.per-second:50}")
+    private double defaultPerSecond;
+
+    @Value("${gateway.ratelimit.default.burst:100}")
+    private int defaultBurst;
+
+    @Value("${gateway.concurrency.initial-limit:200}")
+    private int initialConcurrency;
+
+    @Value("${gateway.concurrency.min-limit:20}")
+    private int minConcurrency;
+
+    @Value("${gateway.concurrency.max-limit:1000}")
+    private int maxConcurrency;
+
+    @Value("${gateway.concurrency.target-latency-ms:250}")
+    private long targetLatencyMs;
+
+    @Value("${gateway.concurrency.default.max-concurrent:4}")
+    private int defaultMaxConcurrent;
+
+    private RateLimiter rateLimiter;
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ConcurrentHashMap<String, RateLimiter.Limit> limits = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Semaphore> heldLimits = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void init() {
+        rateLimiter = new RateLimiter(maxKeys);
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(initialConcurrency, minConcurrency, maxConcurrency,
+                TimeUnit.MILLISECONDS.toNanos(targetLatencyMs));
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ratelimit-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(rateLimiter::sweep, 60, 60, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        // Async re-dispatches (long-poll, SSE, export) were admitted on the first dispatch.
+        if (!enabled || request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+
+        String apiKey = request.getHeader("X-Api-Key");
+        if (apiKey != null && apiKey.length() <= API_KEY_MAX_LENGTH) {
+            RateLimited annotation = method.getMethodAnnotation(RateLimited.class);
+            String name = annotation != null ? annotation.value() : DEFAULT_LIMIT;
+            RateLimiter.Limit limit = limits.computeIfAbsent(name, this::loadLimit);
+            RateLimiter.Decision decision = rateLimiter.tryAcquire(name + ' ' + apiKey, limit);
+
+            response.setHeader("RateLimit-Limit", String.valueOf(limit.burst()));
+            response.setHeader("RateLimit-Remaining", String.valueOf(decision.remaining()));
+            response.setHeader("RateLimit-Reset", String.valueOf(toSeconds(decision.resetNanos())));
+            if (!decision.allowed()) {
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, toSeconds(decision.retryAfterNanos()), RATE_LIMITED);
+                return false;
+            }
+        }
+
+        ConcurrencyLimited held = method.getMethodAnnotation(ConcurrencyLimited.class);
+        Semaphore heldLimit = held != null ? heldLimits.computeIfAbsent(held.value(), this::loadHeldLimit) : null;
+        if (heldLimit != null && !heldLimit.tryAcquire()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, OVERLOADED);
+            return false;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            if (heldLimit != null) {
+                heldLimit.release();
+            }
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, OVERLOADED);
+            return false;
+        }
+        request.setAttribute(STARTED_AT, System.nanoTime());
+        if (heldLimit != null) {
+            request.setAttribute(HELD, heldLimit);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(HELD) != null) {
+            // Still streams on a worker thread with a connection; both slots are released on the
+            // async dispatch that ends it.
+            return;
+        }
+        // Long-poll and SSE are held open without a thread or connection; stop counting them,
+        // and don't sample their latency.
+        if (request.getAttribute(STARTED_AT) != null) {
+            request.removeAttribute(STARTED_AT);
+            concurrencyLimiter.release(-1);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object startedAt = request.getAttribute(STARTED_AT);
+        if (startedAt == null) {
+            return;
+        }
+        request.removeAttribute(STARTED_AT);
+        if (request.getAttribute(HELD) instanceof Semaphore heldLimit) {
+            request.removeAttribute(HELD);
+            heldLimit.release();
+            // Its duration is the size of the export, not a sign of load.
+            concurrencyLimiter.release(-1);
+        } else {
+            concurrencyLimiter.release(System.nanoTime() - (Long) startedAt);
+        }
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    private RateLimiter.Limit loadLimit(String name) {
+        String prefix = "gateway.ratelimit." + name;
+        return new RateLimiter.Limit(
+                environment.getProperty(prefix + ".per-second", Double.class, defaultPerSecond),
+                environment.getProperty(prefix + ".burst", Integer.class, defaultBurst));
+    }
+
+    private Semaphore loadHeldLimit(String name) {
+        return new Semaphore(environment.getProperty("gateway.concurrency." + name + ".max-concurrent", Integer.class,
+                defaultMaxConcurrent));
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, ApiError error)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfterSeconds)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        error.writeTo(response.getOutputStream());
+    }
+
+    private static long toSeconds(long nanos) {
+        return (nanos + 999_999_999L) / 1_000_000_000L;
+    }
+}
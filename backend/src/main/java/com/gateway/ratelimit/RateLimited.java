@@ -0,0 +1,17 @@
+package com.gateway.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the limit bucket for a handler; limits are read from
+ * {@code gateway.ratelimit.<name>.per-second} and {@code .burst}. Handlers without it share
+ * the {@code default} limit.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+    String value();
+}
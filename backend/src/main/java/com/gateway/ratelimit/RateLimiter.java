@@ -0,0 +1,91 @@
+package com.gateway.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets by key, bounded to {@code maxKeys}. Full buckets are indistinguishable from
+ * absent ones, so they are swept first; only if every bucket is active are arbitrary ones
+ * dropped, which can only ever make the limiter more lenient, never block a caller.
+ */
+public class RateLimiter {
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final int maxKeys;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public RateLimiter(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Takes a token from the bucket for {@code key}, creating it with {@code limit} if needed.
+     */
+    public Decision tryAcquire(String key, Limit limit) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                sweep(now);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(limit.perSecond(), limit.burst(), now));
+        }
+        long result = bucket.tryTake(now);
+        if (result < 0) {
+            rejected.increment();
+            return new Decision(false, 0, -result - 1, bucket.nanosUntilFull(now));
+        }
+        return new Decision(true, result, 0, bucket.nanosUntilFull(now));
+    }
+
+    /**
+     * Drops full buckets; called periodically and whenever the map reaches its bound.
+     */
+    public void sweep() {
+        sweep(System.nanoTime());
+    }
+
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+            int target = maxKeys - maxKeys / 10;
+            Iterator<Map.Entry<String, TokenBucket>> iterator = buckets.entrySet().iterator();
+            while (buckets.size() > target && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                dropped.increment();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public record Limit(double perSecond, int burst) {
+    }
+
+    /**
+     * Outcome of one acquire, with what the RateLimit headers need.
+     */
+    public record Decision(boolean allowed, long remaining, long retryAfterNanos, long resetNanos) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket kept as a single "theoretical arrival time" (GCRA): the instant at which the
+ * bucket would be full again. Taking a token is one CAS on that value, with no lock and no
+ * separate refill step.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double tokensPerSecond, int burst, long nowNanos) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / tokensPerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return tokens left after taking one, or {@code -(nanos until a token is available) - 1}
+     *         if the bucket is empty
+     */
+    public long tryTake(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long start = Math.max(current, nowNanos);
+            long next = start + intervalNanos;
+            long waitNanos = next - nowNanos - toleranceNanos - intervalNanos;
+            if (waitNanos > 0) {
+                return -waitNanos - 1;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return (nowNanos + toleranceNanos + intervalNanos - next) / intervalNanos;
+            }
+        }
+    }
+
+    /**
+     * Nanoseconds until the bucket has refilled completely.
+     */
+    public long nanosUntilFull(long nowNanos) {
+        return Math.max(0, fullAt.get() - nowNanos);
+    }
+
+    /**
+     * A full bucket behaves exactly like a new one, so it can be dropped without effect.
+     */
+    public boolean isFull(long nowNanos) {
+        return fullAt.get() - nowNanos <= 0;
+    }
+}
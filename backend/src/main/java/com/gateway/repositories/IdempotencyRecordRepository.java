@@ -0,0 +1,45 @@
+package com.gateway.repositories;
+
+import com.gateway.models.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys (id, merchant_id, status, request_hash, created_at) "
+            + "VALUES (:id, :merchantId, 'pending', :requestHash, :createdAt) ON CONFLICT (id) DO NOTHING",
+            nativeQuery = true)
+    int claim(String id, UUID merchantId, String requestHash, LocalDateTime createdAt);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE idempotency_keys SET status = 'completed', status_code = :statusCode, "
+            + "response_body = :responseBody WHERE id = :id AND status = 'pending' AND created_at = :claimedAt",
+            nativeQuery = true)
+    int complete(String id, LocalDateTime claimedAt, int statusCode, String responseBody);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_keys WHERE id = :id AND status = 'pending' AND created_at = :claimedAt",
+            nativeQuery = true)
+    int release(String id, LocalDateTime claimedAt);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_keys WHERE id = :id AND status = 'pending' AND created_at < :claimedBefore",
+            nativeQuery = true)
+    int releaseStaleClaim(String id, LocalDateTime claimedBefore);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteOlderThan(LocalDateTime cutoff);
+}
@@ -0,0 +1,75 @@
+package com.gateway.repositories;
+
+import com.gateway.dto.CursorPage;
+import com.gateway.dto.ListFilter;
+import com.gateway.dto.PageCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Newest-first keyset pagination over (merchant_id, created_at, id).
+ *
+ * The cursor becomes a row-value predicate, so each page is a bounded range scan of the
+ * (merchant_id, created_at, id) index no matter how deep the client has paged.
+ */
+final class KeysetQuery {
+
+    private KeysetQuery() {
+    }
+
+    static <T> CursorPage<T> page(EntityManager entityManager, Class<T> type, UUID merchantId,
+                                  ListFilter filter, PageCursor after, int limit,
+                                  Function<T, PageCursor> cursorOf) {
+        StringBuilder jpql = new StringBuilder("select e from ")
+                .append(type.getSimpleName())
+                .append(" e where e.merchantId = :merchantId");
+        if (filter.status() != null) {
+            jpql.append(" and e.status = :status");
+        }
+        if (filter.method() != null) {
+            jpql.append(" and e.method = :method");
+        }
+        if (filter.from() != null) {
+            jpql.append(" and e.createdAt >= :from");
+        }
+        if (filter.to() != null) {
+            jpql.append(" and e.createdAt < :to");
+        }
+        if (after != null) {
+            jpql.append(" and (e.createdAt, e.id) < (:afterCreatedAt, :afterId)");
+        }
+        jpql.append(" order by e.createdAt desc, e.id desc");
+
+        TypedQuery<T> query = entityManager.createQuery(jpql.toString(), type)
+                .setParameter("merchantId", merchantId)
+                // One extra row tells us whether there is a next page without a count query.
+                .setMaxResults(limit + 1);
+        if (filter.status() != null) {
+            query.setParameter("status", filter.status());
+        }
+        if (filter.method() != null) {
+            query.setParameter("method", filter.method());
+        }
+        if (filter.from() != null) {
+            query.setParameter("from", filter.from());
+        }
+        if (filter.to() != null) {
+            query.setParameter("to", filter.to());
+        }
+        if (after != null) {
+            query.setParameter("afterCreatedAt", after.createdAt());
+            query.setParameter("afterId", after.id());
+        }
+
+        List<T> rows = query.getResultList();
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+    }
+}
@@ -1,12 +1,48 @@
 package com.gateway.repositories;
 
 import com.gateway.models.Order;
+import com.gateway.services.IdGenerator;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, String> {
+public interface OrderRepository extends JpaRepository<Order, String>, OrderRepositoryCustom {
     Optional<Order> findByIdAndMerchantId(String id, UUID merchantId);
+
+    // With created_at bounded the planner scans only the partitions that can hold the row.
+    // Read-only like the inherited findById, so a replica can serve it.
+    @Transactional(readOnly = true)
+    Optional<Order> findByIdAndCreatedAtBetween(String id, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Looks the order up in the partitions around the time in its id. Ids without one, or a
+     * row outside that window, fall back to a lookup across all partitions.
+     */
+    @Transactional(readOnly = true)
+    default Optional<Order> findByIdPruned(String id) {
+        LocalDateTime issuedAt = IdGenerator.issuedAt(id);
+        if (issuedAt != null) {
+            Optional<Order> order = findByIdAndCreatedAtBetween(id,
+                    issuedAt.minus(IdGenerator.CREATED_AT_SLACK), issuedAt.plus(IdGenerator.CREATED_AT_SLACK));
+            if (order.isPresent()) {
+                return order;
+            }
+        }
+        return findById(id);
+    }
+
+    // Compare-and-set on status: no row lock is held beyond the UPDATE itself. createdAt
+    // prunes the UPDATE to the order's partition.
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.status = :to, o.updatedAt = :now, o.version = o.version + 1 "
+            + "WHERE o.id = :id AND o.createdAt = :createdAt AND o.status IN :from")
+    int transition(String id, LocalDateTime createdAt, Collection<String> from, String to, LocalDateTime now);
 }
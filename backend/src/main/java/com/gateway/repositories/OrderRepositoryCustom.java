@@ -0,0 +1,11 @@
+package com.gateway.repositories;
+
+import com.gateway.dto.CursorPage;
+import com.gateway.dto.ListFilter;
+import com.gateway.dto.PageCursor;
+import com.gateway.models.Order;
+import java.util.UUID;
+
+public interface OrderRepositoryCustom {
+    CursorPage<Order> findPage(UUID merchantId, ListFilter filter, PageCursor after, int limit);
+}
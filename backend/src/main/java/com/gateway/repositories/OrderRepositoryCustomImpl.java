@@ -0,0 +1,21 @@
+package com.gateway.repositories;
+
+import com.gateway.dto.CursorPage;
+import com.gateway.dto.ListFilter;
+import com.gateway.dto.PageCursor;
+import com.gateway.models.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.UUID;
+
+class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public CursorPage<Order> findPage(UUID merchantId, ListFilter filter, PageCursor after, int limit) {
+        return KeysetQuery.page(entityManager, Order.class, merchantId, filter, after, limit,
+                order -> new PageCursor(order.getCreatedAt(), order.getId()));
+    }
+}
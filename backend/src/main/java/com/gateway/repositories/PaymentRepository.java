@@ -1,12 +1,65 @@
 package com.gateway.repositories;
 
 import com.gateway.models.Payment;
+import com.gateway.services.IdGenerator;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface PaymentRepository extends JpaRepository<Payment, String> {
+public interface PaymentRepository extends JpaRepository<Payment, String>, PaymentRepositoryCustom {
     Optional<Payment> findByIdAndMerchantId(String id, UUID merchantId);
+
+    // With created_at bounded the planner scans only the partitions that can hold the row.
+    // Read-only like the inherited findById, so a replica can serve it.
+    @Transactional(readOnly = true)
+    Optional<Payment> findByIdAndCreatedAtBetween(String id, LocalDateTime from, LocalDateTime to);
+
+    @Transactional(readOnly = true)
+    List<Payment> findByIdInAndCreatedAtBetween(Collection<String> ids, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Looks the payment up in the partitions around the time in its id. Ids without one, or a
+     * row outside that window, fall back to a lookup across all partitions.
+     */
+    @Transactional(readOnly = true)
+    default Optional<Payment> findByIdPruned(String id) {
+        LocalDateTime issuedAt = IdGenerator.issuedAt(id);
+        if (issuedAt != null) {
+            Optional<Payment> payment = findByIdAndCreatedAtBetween(id,
+                    issuedAt.minus(IdGenerator.CREATED_AT_SLACK), issuedAt.plus(IdGenerator.CREATED_AT_SLACK));
+            if (payment.isPresent()) {
+                return payment;
+            }
+        }
+        return findById(id);
+    }
+
+    /**
+     * {@link #findByIdPruned} for several ids, pruned to the window spanning all of them.
+     */
+    @Transactional(readOnly = true)
+    default List<Payment> findAllByIdPruned(Collection<String> ids) {
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (String id : ids) {
+            LocalDateTime issuedAt = IdGenerator.issuedAt(id);
+            if (issuedAt == null) {
+                return findAllById(ids);
+            }
+            from = from == null || issuedAt.isBefore(from) ? issuedAt : from;
+            to = to == null || issuedAt.isAfter(to) ? issuedAt : to;
+        }
+        if (from == null) {
+            return List.of();
+        }
+        List<Payment> payments = findByIdInAndCreatedAtBetween(ids,
+                from.minus(IdGenerator.CREATED_AT_SLACK), to.plus(IdGenerator.CREATED_AT_SLACK));
+        return payments.size() == ids.size() ? payments : findAllById(ids);
+    }
 }
@@ -0,0 +1,11 @@
+package com.gateway.repositories;
+
+import com.gateway.dto.CursorPage;
+import com.gateway.dto.ListFilter;
+import com.gateway.dto.PageCursor;
+import com.gateway.models.Payment;
+import java.util.UUID;
+
+public interface PaymentRepositoryCustom {
+    CursorPage<Payment> findPage(UUID merchantId, ListFilter filter, PageCursor after, int limit);
+}
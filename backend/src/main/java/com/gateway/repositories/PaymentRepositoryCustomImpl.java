@@ -0,0 +1,21 @@
+package com.gateway.repositories;
+
+import com.gateway.dto.CursorPage;
+import com.gateway.dto.ListFilter;
+import com.gateway.dto.PageCursor;
+import com.gateway.models.Payment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.UUID;
+
+class PaymentRepositoryCustomImpl implements PaymentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public CursorPage<Payment> findPage(UUID merchantId, ListFilter filter, PageCursor after, int limit) {
+        return KeysetQuery.page(entityManager, Payment.class, merchantId, filter, after, limit,
+                payment -> new PageCursor(payment.getCreatedAt(), payment.getId()));
+    }
+}
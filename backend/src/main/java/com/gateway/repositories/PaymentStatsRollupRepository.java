@@ -0,0 +1,14 @@
+package com.gateway.repositories;
+
+import com.gateway.models.PaymentStatsRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PaymentStatsRollupRepository extends JpaRepository<PaymentStatsRollup, PaymentStatsRollup.Key> {
+    List<PaymentStatsRollup> findByMerchantIdAndGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+            UUID merchantId, String granularity, LocalDateTime from, LocalDateTime to);
+}
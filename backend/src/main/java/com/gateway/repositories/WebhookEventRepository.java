@@ -0,0 +1,36 @@
+package com.gateway.repositories;
+
+import com.gateway.models.WebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, String> {
+
+    // SKIP LOCKED lets several API nodes claim disjoint batches from the same outbox.
+    @Query(value = "SELECT * FROM webhook_events WHERE status = 'pending' AND next_attempt_at <= :now "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<WebhookEvent> lockDue(LocalDateTime now, int limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookEvent e SET e.status = 'delivered', e.attempts = :attempts, e.deliveredAt = :now, "
+            + "e.lastError = null, e.updatedAt = :now WHERE e.id = :id")
+    int markDelivered(String id, int attempts, LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookEvent e SET e.status = :status, e.attempts = :attempts, e.nextAttemptAt = :nextAttemptAt, "
+            + "e.lastError = :lastError, e.updatedAt = :now WHERE e.id = :id")
+    int markAttempted(String id, String status, int attempts, LocalDateTime nextAttemptAt, String lastError, LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookEvent e SET e.nextAttemptAt = :nextAttemptAt WHERE e.id = :id")
+    int reschedule(String id, LocalDateTime nextAttemptAt);
+}
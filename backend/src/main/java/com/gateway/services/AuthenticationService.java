@@ -0,0 +1,121 @@
+package com.gateway.services;
+
+import com.gateway.cache.TtlCache;
+import com.gateway.datasource.ReplicaReads;
+import com.gateway.models.Merchant;
+import com.gateway.repositories.MerchantRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class AuthenticationService {
+
+    // Matches the api_key column length; longer keys cannot exist and never reach the database.
+    private static final int MAX_API_KEY_LENGTH = 64;
+
+    @Autowired
+    private MerchantRepository merchantRepository;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${gateway.auth.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${gateway.auth.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${gateway.auth.cache.negative-ttl-seconds:10}")
+    private long negativeTtlSeconds;
+
+    private TtlCache<String, Credential> cache;
+    private Timer cachedLookups;
+    private Timer databaseLookups;
+    private final LongAdder negativeHits = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        cache = new TtlCache<>(maxSize);
+        cachedLookups = lookupTimer("hit");
+        databaseLookups = lookupTimer("miss");
+    }
+
+    public Optional<Merchant> authenticate(String apiKey, String apiSecret) {
+        if (apiKey.length() > MAX_API_KEY_LENGTH) {
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        Credential credential = cache.get(apiKey);
+        if (credential == null) {
+            credential = new Credential(replicaReads.find(() -> merchantRepository.findByApiKey(apiKey)).orElse(null));
+            long ttl = credential.merchant == null ? negativeTtlSeconds : ttlSeconds;
+            cache.put(apiKey, credential, TimeUnit.SECONDS.toNanos(ttl));
+            databaseLookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } else {
+            if (credential.merchant == null) {
+                negativeHits.increment();
+            }
+            cachedLookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        Merchant merchant = credential.merchant;
+        if (merchant == null || Boolean.FALSE.equals(merchant.getIsActive())) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(credential.secret, apiSecret.getBytes(StandardCharsets.UTF_8))) {
+            return Optional.empty();
+        }
+        return Optional.of(merchant);
+    }
+
+    public void invalidate(String apiKey) {
+        cache.invalidate(apiKey);
+    }
+
+    public void invalidateMerchant(UUID merchantId) {
+        cache.invalidateIf(credential -> credential.merchant != null
+                && merchantId.equals(credential.merchant.getId()));
+    }
+
+    private Timer lookupTimer(String cache) {
+        return Timer.builder("gateway.auth.lookup")
+                .description("Credential lookup by API key")
+                .tag("cache", cache)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public TtlCache<String, ?> getCache() {
+        return cache;
+    }
+
+    public long getNegativeHitCount() {
+        return negativeHits.sum();
+    }
+
+    private static final class Credential {
+        final Merchant merchant;
+        final byte[] secret;
+
+        Credential(Merchant merchant) {
+            this.merchant = merchant;
+            this.secret = merchant == null || merchant.getApiSecret() == null
+                    ? new byte[0]
+                    : merchant.getApiSecret().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
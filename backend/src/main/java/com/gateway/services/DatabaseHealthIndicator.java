@@ -0,0 +1,80 @@
+package com.gateway.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Probes the database by borrowing a pooled connection and validating it.
+ *
+ * The result is reused for {@code gateway.health.cache-ms}, and only one caller probes at a
+ * time while the others get the previous result, so frequent health checks never compete
+ * with requests for connections.
+ */
+@Component("database")
+public class DatabaseHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${gateway.health.cache-ms:2000}")
+    private long cacheMs;
+
+    @Value("${gateway.health.timeout-seconds:2}")
+    private int timeoutSeconds;
+
+    private volatile Probe last;
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    public Probe check() {
+        Probe probe = last;
+        if (probe != null && System.nanoTime() - probe.probedAtNanos() < TimeUnit.MILLISECONDS.toNanos(cacheMs)) {
+            return probe;
+        }
+        boolean owner = probing.compareAndSet(false, true);
+        if (!owner && probe != null) {
+            return probe;
+        }
+        try {
+            probe = probe();
+            last = probe;
+            return probe;
+        } finally {
+            if (owner) {
+                probing.set(false);
+            }
+        }
+    }
+
+    @Override
+    public Health health() {
+        Probe probe = check();
+        return (probe.up() ? Health.up() : Health.down())
+                .withDetail("latency_ms", probe.latencyMillis())
+                .withDetail("checked_at", probe.checkedAt().toString())
+                .build();
+    }
+
+    private Probe probe() {
+        long start = System.nanoTime();
+        boolean up;
+        try (Connection connection = dataSource.getConnection()) {
+            up = connection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            up = false;
+        }
+        long end = System.nanoTime();
+        return new Probe(up, TimeUnit.NANOSECONDS.toMillis(end - start), Instant.now(), end);
+    }
+
+    public record Probe(boolean up, long latencyMillis, Instant checkedAt, long probedAtNanos) {
+    }
+}
@@ -0,0 +1,222 @@
+package com.gateway.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates prefixed 16-character IDs laid out as time (8) + node (2) + sequence (4) + random (2),
+ * base62-encoded with an ASCII-ordered alphabet so IDs sort by creation time.
+ *
+ * IDs are unique across nodes only if node ids are. {@code gateway.node-id} assigns one
+ * explicitly; otherwise the node leases one from {@code node_id_leases} at startup and renews
+ * it while it runs. If the lease cannot be renewed before it expires, another node may take
+ * the id over, so ID generation fails until a renewal succeeds.
+ */
+@Service
+public class IdGenerator {
+
+    // Lowest node id that is free or whose lease has expired.
+    private static final String LEASE = "INSERT INTO node_id_leases (node_id, owner, expires_at) "
+            + "SELECT n, ?, now() + make_interval(secs => ?) FROM generate_series(0, ?) AS n "
+            + "WHERE NOT EXISTS (SELECT 1 FROM node_id_leases l WHERE l.node_id = n AND l.expires_at > now()) "
+            + "ORDER BY n LIMIT 1 "
+            + "ON CONFLICT (node_id) DO UPDATE SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at "
+            + "WHERE node_id_leases.expires_at <= now() "
+            + "RETURNING node_id";
+
+    private static final String RENEW = "UPDATE node_id_leases SET expires_at = now() + make_interval(secs => ?) "
+            + "WHERE node_id = ? AND owner = ?";
+
+    private static final String RELEASE = "DELETE FROM node_id_leases WHERE node_id = ? AND owner = ?";
+
+    private static final char[] ALPHABET =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int BASE = ALPHABET.length;
+    private static final int MAX_NODE_ID = BASE * BASE - 1;
+
+    private static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int SEQUENCE_BITS = 22;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /**
+     * How far a row's created_at may be from the time in its ID. Both are read from the same
+     * clock moments apart; the margin covers clock steps.
+     */
+    public static final Duration CREATED_AT_SLACK = Duration.ofMinutes(1);
+
+    @Value("${gateway.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${gateway.node-id.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Autowired(required = false)
+    private JdbcTemplate jdbcTemplate;
+
+    private int nodeId;
+    private String leaseOwner;
+    private ScheduledExecutorService renewer;
+    // System.nanoTime() until which the leased node id is known to be ours.
+    private volatile long leaseValidUntil;
+    private final LongAdder renewFailures = new LongAdder();
+
+    // (millis since EPOCH_MILLIS << SEQUENCE_BITS) | sequence of the last issued ID
+    private final AtomicLong state = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (configuredNodeId == null || configuredNodeId.isBlank()) {
+            lease();
+        } else {
+            nodeId = Integer.parseInt(configuredNodeId.trim());
+            if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+                throw new IllegalStateException("gateway.node-id must be between 0 and " + MAX_NODE_ID);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (renewer == null) {
+            return;
+        }
+        renewer.shutdownNow();
+        try {
+            // Lets the next start (of this or any node) reuse the id at once.
+            jdbcTemplate.update(RELEASE, nodeId, leaseOwner);
+        } catch (RuntimeException e) {
+            // The lease expires on its own.
+        }
+    }
+
+    private void lease() {
+        if (jdbcTemplate == null) {
+            throw new IllegalStateException("gateway.node-id is not set and there is no database to lease one from");
+        }
+        leaseOwner = System.getenv().getOrDefault("HOSTNAME", "node") + "/" + UUID.randomUUID();
+        // Another node may take the same free id between our read and insert; then try the next.
+        for (int attempt = 0; attempt < 10; attempt++) {
+            long start = System.nanoTime();
+            List<Integer> leased = jdbcTemplate.queryForList(LEASE, Integer.class, leaseOwner, leaseSeconds, MAX_NODE_ID);
+            if (!leased.isEmpty()) {
+                nodeId = leased.get(0);
+                leaseValidUntil = start + TimeUnit.SECONDS.toNanos(leaseSeconds);
+                renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "node-id-lease");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                long period = Math.max(1, leaseSeconds / 4);
+                renewer.scheduleWithFixedDelay(this::renew, period, period, TimeUnit.SECONDS);
+                return;
+            }
+        }
+        throw new IllegalStateException("No free node id in node_id_leases (0-" + MAX_NODE_ID + ")");
+    }
+
+    private void renew() {
+        long start = System.nanoTime();
+        try {
+            if (jdbcTemplate.update(RENEW, leaseSeconds, nodeId, leaseOwner) == 1) {
+                leaseValidUntil = start + TimeUnit.SECONDS.toNanos(leaseSeconds);
+                return;
+            }
+            // Another node took the id over after our lease expired; stop using it.
+            leaseValidUntil = start;
+        } catch (RuntimeException e) {
+            // Retried on the next tick; IDs keep being issued until the lease runs out.
+        }
+        renewFailures.increment();
+    }
+
+    public String nextOrderId() {
+        return next("order_");
+    }
+
+    public String nextPaymentId() {
+        return next("pay_");
+    }
+
+    public String nextEventId() {
+        return next("evt_");
+    }
+
+    private String next(String prefix) {
+        if (renewer != null && System.nanoTime() - leaseValidUntil > 0) {
+            throw new IllegalStateException("Node id " + nodeId + " lease expired");
+        }
+        long current = nextState();
+        int offset = prefix.length();
+        char[] id = new char[offset + 16];
+        prefix.getChars(0, offset, id, 0);
+        encode(id, offset, 8, current >>> SEQUENCE_BITS);
+        encode(id, offset + 8, 2, nodeId);
+        encode(id, offset + 10, 4, current & SEQUENCE_MASK);
+        encode(id, offset + 14, 2, ThreadLocalRandom.current().nextInt(BASE * BASE));
+        return new String(id);
+    }
+
+    private long nextState() {
+        while (true) {
+            long last = state.get();
+            long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            // A clock step backwards or an exhausted sequence borrows from the next millisecond.
+            long next = Math.max(now, last + 1);
+            if (state.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    private static void encode(char[] target, int offset, int width, long value) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            target[i] = ALPHABET[(int) (value % BASE)];
+            value /= BASE;
+        }
+    }
+
+    /**
+     * When the ID was issued, in local time like created_at, or null if it is not an ID this
+     * class generates (seeded and legacy rows). Lets lookups by ID prune partitions.
+     */
+    public static LocalDateTime issuedAt(String id) {
+        int offset = id.indexOf('_') + 1;
+        if (offset == 0 || id.length() != offset + 16) {
+            return null;
+        }
+        long millis = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            int digit = Arrays.binarySearch(ALPHABET, id.charAt(i));
+            if (digit < 0) {
+                return null;
+            }
+            millis = millis * BASE + digit;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(EPOCH_MILLIS + millis), ZoneId.systemDefault());
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public long getLeaseRenewFailureCount() {
+        return renewFailures.sum();
+    }
+}
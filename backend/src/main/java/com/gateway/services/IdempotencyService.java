@@ -0,0 +1,306 @@
+package com.gateway.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.cache.TtlCache;
+import com.gateway.datasource.ReplicaReads;
+import com.gateway.json.ApiError;
+import com.gateway.models.IdempotencyRecord;
+import com.gateway.repositories.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response for a repeated Idempotency-Key. The first request claims the key
+ * by inserting a pending row, so only one node runs the action; every other request with the
+ * key waits for the row to complete and replays it. Requests on the same node share one wait
+ * instead of each polling the database. Completed responses are also kept in memory.
+ *
+ * The action's writes and the claim's completion commit in one transaction. A request whose
+ * completion fails, or whose stale claim was taken over meanwhile, leaves no order or payment
+ * behind for the next attempt to duplicate.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final ApiError IDEMPOTENCY_KEY_IN_PROGRESS = ApiError.badRequest("A request with this Idempotency-Key is still in progress");
+    private static final ApiError IDEMPOTENCY_KEY_REUSED = ApiError.badRequest("Idempotency-Key was already used with a different request body");
+
+    private static final String COMPLETED = "completed";
+    private static final long MAX_POLL_INTERVAL_MS = 500;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gateway.idempotency.cache.max-size:100000}")
+    private int maxSize;
+
+    @Value("${gateway.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${gateway.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    @Value("${gateway.idempotency.poll-interval-ms:25}")
+    private long pollIntervalMs;
+
+    // A pending claim older than this is taken to belong to a node that died mid-request.
+    @Value("${gateway.idempotency.claim-timeout-ms:120000}")
+    private long claimTimeoutMs;
+
+    private TransactionTemplate transactionTemplate;
+    private TtlCache<String, StoredResponse> completed;
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private ScheduledExecutorService purger;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        completed = new TtlCache<>(maxSize);
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purgeExpired, 1, 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        purger.shutdownNow();
+    }
+
+    public ResponseEntity<?> execute(UUID merchantId, String scope, String key, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        String id = merchantId + ":" + scope + ":" + key;
+        String requestHash = fingerprint(request);
+
+        StoredResponse stored = completed.get(id);
+        if (stored != null) {
+            return stored.replayFor(requestHash);
+        }
+
+        CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> existing = inFlight.putIfAbsent(id, execution);
+        if (existing != null) {
+            return awaitOrRetry(existing, merchantId, scope, key, request, requestHash, action);
+        }
+
+        try {
+            // The previous owner may have finished between the cache check and putIfAbsent.
+            stored = completed.get(id);
+            if (stored != null) {
+                execution.complete(stored);
+                return stored.replayFor(requestHash);
+            }
+
+            // No read first: a new key costs one insert. Created_at doubles as the claim token
+            // (truncated to the column's precision) so a stale owner cannot complete a claim
+            // that has since been taken over.
+            LocalDateTime claimedAt;
+            while (true) {
+                claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+                if (idempotencyRecordRepository.claim(id, merchantId, requestHash, claimedAt) == 1) {
+                    break;
+                }
+                // Another node (or an earlier process) holds the key.
+                stored = awaitCompletion(id);
+                if (stored != StoredResponse.RELEASED) {
+                    execution.complete(stored);
+                    if (stored == null) {
+                        return conflict();
+                    }
+                    completed.put(id, stored, TimeUnit.HOURS.toNanos(ttlHours));
+                    return stored.replayFor(requestHash);
+                }
+            }
+
+            LocalDateTime claimToken = claimedAt;
+            StoredResponse[] result = new StoredResponse[1];
+            ResponseEntity<?> response;
+            try {
+                response = transactionTemplate.execute(status -> {
+                    ResponseEntity<?> actionResponse = action.get();
+                    if (actionResponse.getStatusCode().is5xxServerError()) {
+                        // Not stored, and nothing it wrote is kept: the client is expected to
+                        // retry with the same key.
+                        status.setRollbackOnly();
+                        return actionResponse;
+                    }
+                    StoredResponse completion = new StoredResponse(requestHash, actionResponse.getStatusCode().value(),
+                            serialize(actionResponse.getBody()));
+                    if (idempotencyRecordRepository.complete(id, claimToken, completion.statusCode, completion.body) != 1) {
+                        // Taken over as stale; the new owner's execution is the one that counts.
+                        throw new IllegalStateException("Idempotency claim was taken over before the request completed");
+                    }
+                    result[0] = completion;
+                    return actionResponse;
+                });
+            } catch (RuntimeException e) {
+                idempotencyRecordRepository.release(id, claimedAt);
+                throw e;
+            }
+            stored = result[0];
+            if (stored == null) {
+                idempotencyRecordRepository.release(id, claimedAt);
+                execution.complete(null);
+                return response;
+            }
+
+            completed.put(id, stored, TimeUnit.HOURS.toNanos(ttlHours));
+            execution.complete(stored);
+            return response;
+        } catch (RuntimeException e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, execution);
+        }
+    }
+
+    /**
+     * Polls the primary until the claim on {@code id} completes. Returns null if it is still
+     * pending after the wait timeout, and RELEASED if the claim is gone (its owner got a 5xx)
+     * or was stale, in which case the caller races to claim the key again.
+     */
+    private StoredResponse awaitCompletion(String id) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMs);
+        long interval = pollIntervalMs;
+        while (true) {
+            Optional<IdempotencyRecord> record = replicaReads.onPrimary(() -> idempotencyRecordRepository.findById(id));
+            if (record.isEmpty()) {
+                return StoredResponse.RELEASED;
+            }
+            if (COMPLETED.equals(record.get().getStatus())) {
+                return StoredResponse.of(record.get());
+            }
+            if (record.get().getCreatedAt().isBefore(LocalDateTime.now().minus(claimTimeoutMs, ChronoUnit.MILLIS))) {
+                idempotencyRecordRepository.releaseStaleClaim(id, LocalDateTime.now().minus(claimTimeoutMs, ChronoUnit.MILLIS));
+                return StoredResponse.RELEASED;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                return null;
+            }
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            interval = Math.min(interval * 2, MAX_POLL_INTERVAL_MS);
+        }
+    }
+
+    private ResponseEntity<?> awaitOrRetry(CompletableFuture<StoredResponse> execution, UUID merchantId,
+                                           String scope, String key, Object request, String requestHash,
+                                           Supplier<ResponseEntity<?>> action) {
+        StoredResponse stored;
+        try {
+            stored = execution.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return conflict();
+        } catch (TimeoutException e) {
+            return conflict();
+        } catch (ExecutionException e) {
+            stored = null;
+        }
+        // A failed first attempt stores nothing, so the waiter takes its turn at executing.
+        return stored != null ? stored.replayFor(requestHash) : execute(merchantId, scope, key, request, action);
+    }
+
+    private void purgeExpired() {
+        try {
+            idempotencyRecordRepository.deleteOlderThan(LocalDateTime.now().minusHours(ttlHours));
+        } catch (RuntimeException e) {
+            // Retried on the next run.
+        }
+    }
+
+    private String serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response for idempotent replay", e);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint request for idempotency check", e);
+        }
+    }
+
+    private static ResponseEntity<?> conflict() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(IDEMPOTENCY_KEY_IN_PROGRESS);
+    }
+
+    private static final class StoredResponse {
+        static final StoredResponse RELEASED = new StoredResponse(null, 0, null);
+
+        final String requestHash;
+        final int statusCode;
+        final String body;
+
+        StoredResponse(String requestHash, int statusCode, String body) {
+            this.requestHash = requestHash;
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+
+        static StoredResponse of(IdempotencyRecord record) {
+            return new StoredResponse(record.getRequestHash(), record.getStatusCode(), record.getResponseBody());
+        }
+
+        ResponseEntity<?> replayFor(String requestHash) {
+            // Records stored before request hashing was added have no hash and always replay.
+            if (this.requestHash != null && !this.requestHash.equals(requestHash)) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                        .body(IDEMPOTENCY_KEY_REUSED);
+            }
+            return ResponseEntity.status(statusCode)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(REPLAYED_HEADER, "true")
+                    .body(body);
+        }
+    }
+}
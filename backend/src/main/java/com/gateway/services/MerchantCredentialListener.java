@@ -0,0 +1,30 @@
+package com.gateway.services;
+
+import com.gateway.models.Merchant;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * Drops cached credentials whenever a merchant row changes, so deactivation and key
+ * rotation take effect on the next request instead of after the cache TTL.
+ */
+public class MerchantCredentialListener {
+
+    @Autowired
+    @Lazy
+    private AuthenticationService authenticationService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Merchant merchant) {
+        // The old api key is no longer known here, so evict by merchant id as well.
+        authenticationService.invalidateMerchant(merchant.getId());
+        if (merchant.getApiKey() != null) {
+            authenticationService.invalidate(merchant.getApiKey());
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.gateway.services;
+
+import com.gateway.models.Payment;
+import com.gateway.models.PaymentStatus;
+import com.gateway.models.PaymentStatsRollup;
+import com.gateway.repositories.PaymentStatsRollupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-merchant payment counters by hour and day bucket, method and card network.
+ * Increments land in striped in-memory accumulators and are flushed as deltas into
+ * payment_stats_rollup; reads combine the rollup rows with not-yet-flushed deltas, so
+ * a restarted node serves the same numbers without touching the payments table.
+ */
+@Service
+public class MerchantStatsService {
+
+    public static final String HOUR = "hour";
+    public static final String DAY = "day";
+
+    private static final String UPSERT = "INSERT INTO payment_stats_rollup "
+            + "(merchant_id, granularity, bucket_start, method, card_network, created_count, success_count, failed_count, success_volume, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, now()) "
+            + "ON CONFLICT (merchant_id, granularity, bucket_start, method, card_network) DO UPDATE SET "
+            + "created_count = payment_stats_rollup.created_count + EXCLUDED.created_count, "
+            + "success_count = payment_stats_rollup.success_count + EXCLUDED.success_count, "
+            + "failed_count = payment_stats_rollup.failed_count + EXCLUDED.failed_count, "
+            + "success_volume = payment_stats_rollup.success_volume + EXCLUDED.success_volume, "
+            + "updated_at = now()";
+
+    @Autowired
+    private PaymentStatsRollupRepository paymentStatsRollupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${gateway.stats.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+
+    private final ConcurrentHashMap<BucketKey, Counters> pending = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stats-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    public void recordCreated(Payment payment) {
+        LocalDateTime now = LocalDateTime.now();
+        counters(payment, HOUR, now).created.increment();
+        counters(payment, DAY, now).created.increment();
+    }
+
+    public void recordSettled(Payment payment) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean success = PaymentStatus.SUCCESS.equals(payment.getStatus());
+        for (String granularity : new String[] {HOUR, DAY}) {
+            Counters counters = counters(payment, granularity, now);
+            if (success) {
+                counters.success.increment();
+                counters.volume.add(payment.getAmount());
+            } else {
+                counters.failed.increment();
+            }
+        }
+    }
+
+    /**
+     * Rollup rows for the merchant in [from, to), with pending deltas folded in.
+     */
+    public List<PaymentStatsRollup> getRollups(UUID merchantId, String granularity, LocalDateTime from, LocalDateTime to) {
+        Map<BucketKey, PaymentStatsRollup> rows = new LinkedHashMap<>();
+        for (PaymentStatsRollup row : paymentStatsRollupRepository
+                .findByMerchantIdAndGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                        merchantId, granularity, from, to)) {
+            rows.put(new BucketKey(row.getMerchantId(), row.getGranularity(), row.getBucketStart(),
+                    row.getMethod(), row.getCardNetwork()), row);
+        }
+
+        for (Map.Entry<BucketKey, Counters> entry : pending.entrySet()) {
+            BucketKey key = entry.getKey();
+            if (!key.merchantId.equals(merchantId) || !key.granularity.equals(granularity)
+                    || key.bucketStart.isBefore(from) || !key.bucketStart.isBefore(to)) {
+                continue;
+            }
+            PaymentStatsRollup row = rows.computeIfAbsent(key, k -> new PaymentStatsRollup(
+                    k.merchantId, k.granularity, k.bucketStart, k.method, k.cardNetwork, 0L, 0L, 0L, 0L, LocalDateTime.now()));
+            Counters counters = entry.getValue();
+            row.setCreatedCount(row.getCreatedCount() + counters.created.sum());
+            row.setSuccessCount(row.getSuccessCount() + counters.success.sum());
+            row.setFailedCount(row.getFailedCount() + counters.failed.sum());
+            row.setSuccessVolume(row.getSuccessVolume() + counters.volume.sum());
+        }
+        return new ArrayList<>(rows.values());
+    }
+
+    private Counters counters(Payment payment, String granularity, LocalDateTime now) {
+        LocalDateTime bucketStart = HOUR.equals(granularity)
+                ? now.truncatedTo(ChronoUnit.HOURS)
+                : now.truncatedTo(ChronoUnit.DAYS);
+        String network = payment.getCardNetwork() != null ? payment.getCardNetwork() : "";
+        BucketKey key = new BucketKey(payment.getMerchantId(), granularity, bucketStart, payment.getMethod(), network);
+        return pending.computeIfAbsent(key, k -> new Counters());
+    }
+
+    private void flush() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        List<Delta> deltas = new ArrayList<>();
+        Iterator<Map.Entry<BucketKey, Counters>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<BucketKey, Counters> entry = it.next();
+            BucketKey key = entry.getKey();
+            Counters counters = entry.getValue();
+            Delta delta = new Delta(key, counters.created.sumThenReset(), counters.success.sumThenReset(),
+                    counters.failed.sumThenReset(), counters.volume.sumThenReset());
+
+            // Events only land in the current bucket, so an older one is finished once flushed.
+            LocalDateTime current = HOUR.equals(key.granularity)
+                    ? now.truncatedTo(ChronoUnit.HOURS).minusHours(1)
+                    : now.truncatedTo(ChronoUnit.DAYS).minusDays(1);
+            if (key.bucketStart.isBefore(current)) {
+                it.remove();
+            }
+
+            if (delta.isEmpty()) {
+                continue;
+            }
+            deltas.add(delta);
+            rows.add(new Object[] {key.merchantId, key.granularity, Timestamp.valueOf(key.bucketStart), key.method,
+                    key.cardNetwork, delta.created, delta.success, delta.failed, delta.volume});
+        }
+
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT, rows);
+        } catch (RuntimeException e) {
+            // Put the deltas back so the next flush retries them.
+            for (Delta delta : deltas) {
+                delta.restoreInto(pending.computeIfAbsent(delta.key, k -> new Counters()));
+            }
+        }
+    }
+
+    private record BucketKey(UUID merchantId, String granularity, LocalDateTime bucketStart, String method,
+                             String cardNetwork) {
+    }
+
+    private static final class Counters {
+        final LongAdder created = new LongAdder();
+        final LongAdder success = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder volume = new LongAdder();
+    }
+
+    private record Delta(BucketKey key, long created, long success, long failed, long volume) {
+        boolean isEmpty() {
+            return created == 0 && success == 0 && failed == 0 && volume == 0;
+        }
+
+        void restoreInto(Counters counters) {
+            counters.created.add(created);
+            counters.success.add(success);
+            counters.failed.add(failed);
+            counters.volume.add(volume);
+        }
+    }
+}
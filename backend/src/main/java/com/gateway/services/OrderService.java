@@ -1,12 +1,32 @@
 package com.gateway.services;
 
+import com.gateway.cache.ReadThroughCache;
+import com.gateway.datasource.AfterCommit;
+import com.gateway.datasource.ReplicaReads;
+import com.gateway.dto.CreateOrderRequest;
+import com.gateway.dto.CursorPage;
+import com.gateway.dto.ListFilter;
+import com.gateway.dto.PageCursor;
+import com.gateway.logging.EventLog;
 import com.gateway.models.Order;
+import com.gateway.models.OrderStatus;
 import com.gateway.repositories.OrderRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class OrderService {
@@ -14,27 +34,139 @@ public class OrderService {
     @Autowired
     private OrderRepository orderRepository;
     
-    public Order createOrder(UUID merchantId, Map<String, Object> request) {
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int jdbcBatchSize;
+    
+    @Autowired
+    private ReadThroughCache<Order> orderCache;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private EventLog eventLog;
+    
+    @Autowired
+    private ReplicaReads replicaReads;
+    
+    private Timer createTimer;
+    private Timer batchCreateTimer;
+    private DistributionSummary batchSizes;
+    private EventLog.Category events;
+    
+    @PostConstruct
+    public void init() {
+        events = eventLog.category("orders");
+        createTimer = Timer.builder("gateway.orders.create")
+                .tag("batch", "false")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        batchCreateTimer = Timer.builder("gateway.orders.create")
+                .tag("batch", "true")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        batchSizes = DistributionSummary.builder("gateway.orders.batch.size")
+                .baseUnit("orders")
+                .register(meterRegistry);
+    }
+    
+    public Order createOrder(UUID merchantId, CreateOrderRequest request) {
+        long start = System.nanoTime();
+        Order saved = orderRepository.save(newOrder(merchantId, request));
+        replicaReads.recordWrite(merchantId);
+        // The caller's transaction (an idempotent request) may still roll back.
+        AfterCommit.run(() -> orderCache.put(saved.getId(), saved));
+        createTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (events.enabled()) {
+            events.begin("order.created")
+                    .field("order_id", saved.getId())
+                    .field("merchant_id", saved.getMerchantId())
+                    .field("amount", saved.getAmount())
+                    .field("currency", saved.getCurrency())
+                    .latency(start)
+                    .log();
+        }
+        return saved;
+    }
+    
+    public Optional<Order> findOrder(String orderId) {
+        return Optional.ofNullable(orderCache.get(orderId, id -> replicaReads.find(() -> orderRepository.findByIdPruned(id)).orElse(null)));
+    }
+    
+    public Optional<Order> findOrder(String orderId, UUID merchantId) {
+        return findOrder(orderId).filter(order -> order.getMerchantId().equals(merchantId));
+    }
+    
+    /**
+     * Moves the order to {@code attempted} for a new payment.
+     *
+     * @return false if the order is already paid (or gone) and must not take another payment
+     */
+    public boolean markAttempted(Order order) {
+        int updated = orderRepository.transition(order.getId(), order.getCreatedAt(),
+                OrderStatus.sourcesOf(OrderStatus.ATTEMPTED), OrderStatus.ATTEMPTED, LocalDateTime.now());
+        orderCache.invalidate(order.getId());
+        return updated == 1;
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<Order> listOrders(UUID merchantId, ListFilter filter, PageCursor after, int limit) {
+        return replicaReads.forMerchant(merchantId, () -> orderRepository.findPage(merchantId, filter, after, limit));
+    }
+    
+    @Transactional
+    public List<Order> createOrders(UUID merchantId, List<CreateOrderRequest> requests) {
+        long start = System.nanoTime();
+        // persist() rather than save(): the IDs are assigned, so save() would merge and
+        // issue a SELECT per order, which also defeats JDBC insert batching.
+        List<Order> orders = new ArrayList<>(requests.size());
+        for (CreateOrderRequest request : requests) {
+            Order order = newOrder(merchantId, request);
+            entityManager.persist(order);
+            orders.add(order);
+            if (orders.size() % jdbcBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        // Cached once committed: the cache may be shared (Redis), and an order cached from a
+        // rolled-back batch could take payments.
+        AfterCommit.run(() -> {
+            for (Order order : orders) {
+                orderCache.put(order.getId(), order);
+            }
+        });
+        replicaReads.recordWrite(merchantId);
+        // Excludes the commit, which runs after this method returns.
+        batchCreateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(orders.size());
+        if (events.enabled()) {
+            events.begin("orders.created")
+                    .field("merchant_id", merchantId)
+                    .field("count", orders.size())
+                    .latency(start)
+                    .log();
+        }
+        return orders;
+    }
+    
+    private Order newOrder(UUID merchantId, CreateOrderRequest request) {
         Order order = new Order();
-        order.setId(generateOrderId());
+        order.setId(idGenerator.nextOrderId());
         order.setMerchantId(merchantId);
-        order.setAmount((Integer) request.get("amount"));
-        order.setCurrency((String) request.getOrDefault("currency", "INR"));
-        order.setReceipt((String) request.get("receipt"));
-        order.setNotes((String) request.get("notes"));
-        order.setStatus("created");
+        order.setAmount(request.getAmount());
+        order.setCurrency(request.getCurrency() != null ? request.getCurrency() : "INR");
+        order.setReceipt(request.getReceipt());
+        order.setNotes(request.getNotes());
+        order.setStatus(OrderStatus.CREATED);
         order.setCreatedAt(LocalDateTime.now());
         order.setUpdatedAt(LocalDateTime.now());
-        
-        return orderRepository.save(order);
-    }
-    
-    private String generateOrderId() {
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-        StringBuilder id = new StringBuilder("order_");
-        for (int i = 0; i < 16; i++) {
-            id.append(chars.charAt((int) (Math.random() * chars.length())));
-        }
-        return id.toString();
+        return order;
     }
 }
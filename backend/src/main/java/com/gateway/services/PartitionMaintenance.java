@@ -0,0 +1,91 @@
+package com.gateway.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the monthly partitions of {@code orders} and {@code payments} (see
+ * {@code db/migration/V2__partition_orders_payments.sql}) ahead of the clock and, when a
+ * retention is configured, drops the months that fell out of it. Runs on every node at start
+ * and then periodically; the SQL functions serialize concurrent runs.
+ */
+@Service
+public class PartitionMaintenance {
+
+    private static final List<String> TABLES = List.of("orders", "payments");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${gateway.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every month.
+    @Value("${gateway.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${gateway.partitions.check-interval-minutes:60}")
+    private long checkIntervalMinutes;
+
+    private ScheduledExecutorService maintainer;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        maintainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "partition-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintainer.scheduleWithFixedDelay(this::maintain, 0, checkIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        maintainer.shutdownNow();
+    }
+
+    private void maintain() {
+        LocalDate today = LocalDate.now();
+        for (String table : TABLES) {
+            try {
+                created.add(jdbcTemplate.queryForObject("SELECT gateway_create_monthly_partitions(?, ?, ?)",
+                        Integer.class, table, Date.valueOf(today), Date.valueOf(today.plusMonths(monthsAhead))));
+                if (retentionMonths > 0) {
+                    dropped.add(jdbcTemplate.queryForObject("SELECT gateway_drop_monthly_partitions(?, ?)",
+                            Integer.class, table, Date.valueOf(today.minusMonths(retentionMonths))));
+                }
+            } catch (RuntimeException e) {
+                // Retried on the next run; months-ahead leaves that many runs of slack before
+                // inserts find no partition.
+                failures.increment();
+            }
+        }
+    }
+
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+}
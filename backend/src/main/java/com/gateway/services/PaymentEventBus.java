@@ -0,0 +1,143 @@
+package com.gateway.services;
+
+import com.gateway.models.Payment;
+import com.gateway.models.PaymentStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * In-process fan-out of payment status changes to waiting SSE and long-poll clients.
+ * Settlements written by other nodes arrive through {@link PaymentEventRelay}. Listeners run
+ * on the publishing thread (the settlement status writer) and must not block; wrap anything
+ * that does I/O with {@link #serialized}.
+ */
+@Service
+public class PaymentEventBus {
+
+    private final ConcurrentHashMap<String, List<Consumer<Payment>>> listeners = new ConcurrentHashMap<>();
+
+    @Value("${gateway.events.sender-threads:4}")
+    private int senderThreads;
+
+    private ExecutorService sender;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger counter = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "payment-event-sender-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * Registers a listener for one payment and returns the handle that removes it.
+     */
+    public Runnable subscribe(String paymentId, Consumer<Payment> listener) {
+        listeners.compute(paymentId, (id, current) -> {
+            List<Consumer<Payment>> updated = current != null ? current : new CopyOnWriteArrayList<>();
+            updated.add(listener);
+            return updated;
+        });
+        return () -> listeners.computeIfPresent(paymentId, (id, current) -> {
+            current.remove(listener);
+            return current.isEmpty() ? null : current;
+        });
+    }
+
+    public void publish(Payment payment) {
+        List<Consumer<Payment>> current = listeners.get(payment.getId());
+        if (current == null) {
+            return;
+        }
+        for (Consumer<Payment> listener : current) {
+            try {
+                listener.accept(payment);
+            } catch (RuntimeException e) {
+                // One broken client must not keep the others from being notified.
+            }
+        }
+    }
+
+    /**
+     * Wraps a blocking listener so that accepting an event only queues it. Queued events are
+     * handed to the listener in order, one at a time, on the shared sender pool, so a slow
+     * client holds up neither the publisher nor other clients.
+     */
+    public Consumer<Payment> serialized(Consumer<Payment> listener) {
+        Queue<Payment> queue = new ConcurrentLinkedQueue<>();
+        AtomicBoolean draining = new AtomicBoolean();
+        Runnable drain = new Runnable() {
+            @Override
+            public void run() {
+                Payment next;
+                while ((next = queue.poll()) != null) {
+                    try {
+                        listener.accept(next);
+                    } catch (RuntimeException e) {
+                        // Same as publish: a broken client only loses its own events.
+                    }
+                }
+                draining.set(false);
+                // An event queued after the last poll but before the flag was cleared.
+                if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                    submit(this);
+                }
+            }
+        };
+        return payment -> {
+            queue.add(payment);
+            if (draining.compareAndSet(false, true)) {
+                submit(drain);
+            }
+        };
+    }
+
+    private void submit(Runnable drain) {
+        try {
+            sender.execute(drain);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; open streams are closed with the server.
+        }
+    }
+
+    public boolean hasSubscribers(String paymentId) {
+        return listeners.containsKey(paymentId);
+    }
+
+    public Set<String> getSubscribedPaymentIds() {
+        return Set.copyOf(listeners.keySet());
+    }
+
+    public int getSubscriberCount() {
+        int count = 0;
+        for (List<Consumer<Payment>> current : listeners.values()) {
+            count += current.size();
+        }
+        return count;
+    }
+
+    public static boolean isTerminal(String status) {
+        return PaymentStatus.isTerminal(status);
+    }
+}
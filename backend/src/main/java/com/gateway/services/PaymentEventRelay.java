@@ -0,0 +1,202 @@
+package com.gateway.services;
+
+import com.gateway.cache.ReadThroughCache;
+import com.gateway.datasource.ReplicaReads;
+import com.gateway.models.Payment;
+import com.gateway.repositories.PaymentRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Carries settlements to the other nodes, so SSE and long-poll clients connected to one node
+ * hear about payments settled on another.
+ *
+ * {@link PaymentStatusWriter} calls {@link #notifySettled} inside its write transaction, which
+ * issues a Postgres NOTIFY with the payment ids; Postgres delivers it only if the transaction
+ * commits. Every node LISTENs on a dedicated connection outside the pool, reloads the payments
+ * it has local subscribers for from the primary, and publishes them on its
+ * {@link PaymentEventBus}. After a reconnect all subscribed payments are reloaded, since
+ * notifications sent while disconnected are lost.
+ */
+@Service
+public class PaymentEventRelay {
+
+    static final String CHANNEL = "gateway_payment_settled";
+
+    private static final String NOTIFY = "SELECT pg_notify('" + CHANNEL + "', ?)";
+
+    // NOTIFY payloads must stay under 8000 bytes; ids are ASCII.
+    private static final int MAX_PAYLOAD = 7900;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private PaymentEventBus paymentEventBus;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ReadThroughCache<Payment> paymentCache;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
+    @Value("${gateway.events.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gateway.events.relay.poll-timeout-ms:500}")
+    private int pollTimeoutMs;
+
+    @Value("${gateway.events.relay.reconnect-delay-ms:1000}")
+    private long reconnectDelayMs;
+
+    // Tells this node's own notifications apart; its local subscribers already heard.
+    private final String origin = UUID.randomUUID().toString().substring(0, 8);
+
+    private Thread listener;
+    private volatile boolean running;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder reloaded = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "payment-event-relay");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    /**
+     * Announces the payments to the other nodes once the current transaction commits.
+     */
+    public void notifySettled(List<Payment> payments) {
+        if (!enabled || payments.isEmpty()) {
+            return;
+        }
+        StringBuilder payload = new StringBuilder(origin);
+        int ids = 0;
+        for (Payment payment : payments) {
+            if (ids > 0 && payload.length() + 1 + payment.getId().length() > MAX_PAYLOAD) {
+                jdbcTemplate.queryForList(NOTIFY, payload.toString());
+                payload.setLength(origin.length());
+                ids = 0;
+            }
+            payload.append(ids == 0 ? ':' : ',').append(payment.getId());
+            ids++;
+        }
+        jdbcTemplate.queryForList(NOTIFY, payload.toString());
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(primaryDataSource.getJdbcUrl(),
+                    primaryDataSource.getUsername(), primaryDataSource.getPassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                // Whatever settled while this node was not listening.
+                reload(paymentEventBus.getSubscribedPaymentIds());
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications != null && notifications.length > 0) {
+                        reload(subscribedIds(notifications));
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                reconnects.increment();
+                try {
+                    TimeUnit.MILLISECONDS.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private Set<String> subscribedIds(PGNotification[] notifications) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (PGNotification notification : notifications) {
+            String payload = notification.getParameter();
+            int separator = payload.indexOf(':');
+            if (separator < 0 || origin.equals(payload.substring(0, separator))) {
+                continue;
+            }
+            received.increment();
+            for (String id : payload.substring(separator + 1).split(",")) {
+                if (paymentEventBus.hasSubscribers(id)) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private void reload(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        // From the primary: the notification arrives once the write committed there, and a
+        // replica may not have replayed it yet.
+        List<Payment> payments = replicaReads.onPrimary(() -> paymentRepository.findAllByIdPruned(ids));
+        for (Payment payment : payments) {
+            if (!PaymentEventBus.isTerminal(payment.getStatus())) {
+                continue;
+            }
+            paymentCache.put(payment.getId(), payment);
+            paymentEventBus.publish(payment);
+            reloaded.increment();
+        }
+    }
+
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    public long getReloadedCount() {
+        return reloaded.sum();
+    }
+
+    public long getReconnectCount() {
+        return reconnects.sum();
+    }
+}
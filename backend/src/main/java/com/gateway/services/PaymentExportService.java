@@ -0,0 +1,171 @@
+package com.gateway.services;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * Streams a merchant's payments for a time range as CSV or NDJSON.
+ *
+ * Rows are read through a forward-only server-side cursor (Postgres only honours the fetch
+ * size inside a transaction) and written straight to the response, so heap use does not
+ * depend on the size of the range.
+ */
+@Service
+public class PaymentExportService {
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final String QUERY = "SELECT id, order_id, amount, currency, method, status, card_network, "
+            + "card_last4, vpa, error_code, error_description, created_at, updated_at FROM payments "
+            + "WHERE merchant_id = ? AND created_at >= ? AND created_at < ? ORDER BY created_at, id";
+
+    private static final String[] COLUMNS = {
+            "id", "order_id", "amount", "currency", "method", "status", "card_network",
+            "card_last4", "vpa", "error_code", "error_description", "created_at", "updated_at"
+    };
+
+    // 1-based positions in COLUMNS.
+    private static final int AMOUNT_COLUMN = 3;
+    private static final int FIRST_TIMESTAMP_COLUMN = 12;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gateway.export.fetch-size:5000}")
+    private int fetchSize;
+
+    @Value("${gateway.export.buffer-size:65536}")
+    private int bufferSize;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+    }
+
+    public void export(UUID merchantId, LocalDateTime from, LocalDateTime to, String format, OutputStream out) throws IOException {
+        boolean csv = CSV.equals(format);
+        // Full buffers go to the container, which sends them as chunks; nothing accumulates.
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), bufferSize);
+        StringBuilder line = new StringBuilder(512);
+        if (csv) {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(QUERY, rs -> {
+                line.setLength(0);
+                if (csv) {
+                    appendCsv(rs, line);
+                } else {
+                    appendJson(rs, line);
+                }
+                line.append('\n');
+                try {
+                    writer.append(line);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, merchantId, Timestamp.valueOf(from), Timestamp.valueOf(to)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void appendCsv(ResultSet rs, StringBuilder line) throws SQLException {
+        for (int column = 1; column <= COLUMNS.length; column++) {
+            if (column > 1) {
+                line.append(',');
+            }
+            String value = value(rs, column);
+            if (value != null) {
+                appendCsvField(value, line);
+            }
+        }
+    }
+
+    private static void appendJson(ResultSet rs, StringBuilder line) throws SQLException {
+        line.append('{');
+        for (int column = 1; column <= COLUMNS.length; column++) {
+            if (column > 1) {
+                line.append(',');
+            }
+            line.append('"').append(COLUMNS[column - 1]).append("\":");
+            String value = value(rs, column);
+            if (value == null) {
+                line.append("null");
+            } else if (column == AMOUNT_COLUMN) {
+                line.append(value);
+            } else {
+                appendJsonString(value, line);
+            }
+        }
+        line.append('}');
+    }
+
+    private static String value(ResultSet rs, int column) throws SQLException {
+        if (column >= FIRST_TIMESTAMP_COLUMN) {
+            LocalDateTime timestamp = rs.getObject(column, LocalDateTime.class);
+            return timestamp == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp);
+        }
+        return rs.getString(column);
+    }
+
+    private static void appendCsvField(String value, StringBuilder line) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private static void appendJsonString(String value, StringBuilder line) {
+        line.append('"');
+        JsonStringEncoder.getInstance().quoteAsString(value, line);
+        line.append('"');
+    }
+}
@@ -1,13 +1,32 @@
 package com.gateway.services;
 
+import com.gateway.cache.ReadThroughCache;
+import com.gateway.datasource.AfterCommit;
+import com.gateway.datasource.ReplicaReads;
+import com.gateway.dto.CreatePaymentRequest;
+import com.gateway.dto.CursorPage;
+import com.gateway.dto.ListFilter;
+import com.gateway.dto.PageCursor;
+import com.gateway.logging.EventLog;
+import com.gateway.logging.Redaction;
 import com.gateway.models.Merchant;
 import com.gateway.models.Order;
 import com.gateway.models.Payment;
+import com.gateway.models.PaymentStatus;
 import com.gateway.repositories.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class PaymentService {
@@ -18,76 +37,133 @@ public class PaymentService {
     @Autowired
     private ValidationService validationService;
 
-    public Payment createPayment(Merchant merchant, Order order, Map<String, Object> request) {
+    @Autowired
+    private SettlementEngine settlementEngine;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private ReadThroughCache<Payment> paymentCache;
+
+    @Autowired
+    private MerchantStatsService merchantStatsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
+    // Registered up front so the hot path only does map lookups, never registry lookups.
+    private Map<String, Timer> createTimers;
+    private Counter upiCreated;
+    private Map<String, Counter> cardCreated;
+    private EventLog.Category audit;
+
+    @PostConstruct
+    public void init() {
+        audit = eventLog.audit("payments");
+        createTimers = Map.of("upi", createTimer("upi"), "card", createTimer("card"));
+        upiCreated = createdCounter("upi", "none");
+        cardCreated = new HashMap<>();
+        for (String network : ValidationService.NETWORKS) {
+            cardCreated.put(network, createdCounter("card", network));
+        }
+    }
+
+    /**
+     * Throws {@link SettlementCapacityException} while settlement cannot take more payments.
+     */
+    public void checkSettlementCapacity() {
+        settlementEngine.checkCapacity();
+    }
+
+    public Payment createPayment(Merchant merchant, Order order, CreatePaymentRequest request) {
+        long start = System.nanoTime();
+        String method = request.getMethod();
         Payment payment = new Payment();
-        payment.setId(generatePaymentId());
+        payment.setId(idGenerator.nextPaymentId());
         payment.setOrderId(order.getId());
+        payment.setOrderCreatedAt(order.getCreatedAt());
         payment.setMerchantId(merchant.getId());
         payment.setAmount(order.getAmount());
         payment.setCurrency(order.getCurrency());
-        payment.setMethod((String) request.get("method"));
-        payment.setStatus("processing");
+        payment.setMethod(method);
+        payment.setStatus(PaymentStatus.PROCESSING);
 
-        String method = (String) request.get("method");
         if ("upi".equals(method)) {
-            payment.setVpa((String) request.get("vpa"));
+            payment.setVpa(request.getVpa());
         } else if ("card".equals(method)) {
-            Map<String, Object> cardData = (Map<String, Object>) request.get("card");
-            String cardNumber = (String) cardData.get("number");
+            String cardNumber = request.getCard().getNumber();
             payment.setCardNetwork(validationService.detectCardNetwork(cardNumber));
             payment.setCardLast4(cardNumber.substring(cardNumber.length() - 4));
         }
 
-        payment.setCreatedAt(LocalDateTime.now());
-        payment.setUpdatedAt(LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now();
+        payment.setCreatedAt(now);
+        payment.setUpdatedAt(now);
+        // Settlement is driven from the row: any node claims it once it is due.
+        payment.setNextAttemptAt(now.plus(settlementEngine.processingDelay(method)));
 
         Payment savedPayment = paymentRepository.save(payment);
+        replicaReads.recordWrite(savedPayment.getMerchantId());
+        // The caller's transaction (an idempotent request) may still roll back.
+        AfterCommit.run(() -> {
+            paymentCache.put(savedPayment.getId(), savedPayment);
+            merchantStatsService.recordCreated(savedPayment);
+        });
+
+        createTimers.get(method).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        Counter created = "card".equals(method) ? cardCreated.get(payment.getCardNetwork()) : upiCreated;
+        created.increment();
+        logCreated(savedPayment, start);
+        return savedPayment;
+    }
 
-        // Simulate payment processing asynchronously
-        processPaymentAsync(savedPayment, method);
+    // Only fields of the stored payment are written; the request's card data never is, and
+    // the VPA is masked.
+    private void logCreated(Payment payment, long start) {
+        if (audit.enabled()) {
+            audit.begin("payment.created")
+                    .field("payment_id", payment.getId())
+                    .field("order_id", payment.getOrderId())
+                    .field("merchant_id", payment.getMerchantId())
+                    .field("method", payment.getMethod())
+                    .field("amount", payment.getAmount())
+                    .field("currency", payment.getCurrency())
+                    .field("card_network", payment.getCardNetwork())
+                    .field("card_last4", payment.getCardLast4())
+                    .field("vpa", Redaction.vpa(payment.getVpa()))
+                    .field("settle_at", payment.getNextAttemptAt().toString())
+                    .latency(start)
+                    .log();
+        }
+    }
 
-        return savedPayment;
+    public Optional<Payment> findPayment(String paymentId) {
+        return Optional.ofNullable(paymentCache.get(paymentId, id -> replicaReads.find(() -> paymentRepository.findByIdPruned(id)).orElse(null)));
     }
 
-    private void processPaymentAsync(Payment payment, String method) {
-        new Thread(() -> {
-            try {
-                // Get test mode settings
-                String testMode = System.getenv("TEST_MODE");
-                long delay;
-                boolean success;
-
-                if ("true".equals(testMode)) {
-                    delay = Long.parseLong(System.getenv().getOrDefault("TEST_PROCESSING_DELAY", "1000"));
-                    success = "true".equals(System.getenv().getOrDefault("TEST_PAYMENT_SUCCESS", "true"));
-                } else {
-                    delay = (long) (Math.random() * 5000 + 5000);
-                    double successRate = "upi".equals(method) ? 0.9 : 0.95;
-                    success = Math.random() < successRate;
-                }
-
-                Thread.sleep(delay);
-
-                payment.setStatus(success ? "success" : "failed");
-                if (!success) {
-                    payment.setErrorCode("PAYMENT_FAILED");
-                    payment.setErrorDescription("Payment processing failed");
-                }
-                payment.setUpdatedAt(LocalDateTime.now());
-
-                paymentRepository.save(payment);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
+    private Timer createTimer(String method) {
+        return Timer.builder("gateway.payments.create")
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
-    private String generatePaymentId() {
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-        StringBuilder id = new StringBuilder("pay_");
-        for (int i = 0; i < 16; i++) {
-            id.append(chars.charAt((int) (Math.random() * chars.length())));
-        }
-        return id.toString();
+    private Counter createdCounter(String method, String network) {
+        return Counter.builder("gateway.payments.created")
+                .tag("method", method)
+                .tag("network", network)
+                .register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Payment> listPayments(UUID merchantId, ListFilter filter, PageCursor after, int limit) {
+        return replicaReads.forMerchant(merchantId, () -> paymentRepository.findPage(merchantId, filter, after, limit));
     }
 }
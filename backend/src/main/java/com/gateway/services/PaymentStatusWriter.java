@@ -0,0 +1,392 @@
+package com.gateway.services;
+
+import com.gateway.logging.EventLog;
+import com.gateway.models.OrderStatus;
+import com.gateway.models.Payment;
+import com.gateway.models.PaymentStatus;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind for payment status transitions out of {@code processing}.
+ *
+ * Only {@link PaymentStatus#PROCESSING} to a terminal status is written; a success also moves
+ * the order to {@link OrderStatus#PAID} in the same transaction. If the order is already paid
+ * by another payment, the success is turned into a failure with {@link #ORDER_ALREADY_PAID}, so
+ * an order never has two successful payments.
+ *
+ * Transitions are coalesced per payment id and flushed every flush interval, or as soon as a
+ * batch is full, as one JDBC batch of conditional UPDATEs that also require the settlement
+ * lease the payment was claimed under. Only rows the UPDATE actually moved out of
+ * {@code processing} get webhook events (in the same transaction) and are reported as applied.
+ * A failed batch stays pending and is retried on the next flush; shutdown drains everything
+ * pending.
+ */
+@Service
+public class PaymentStatusWriter {
+
+    private static final String UPDATE = "UPDATE payments SET status = ?, error_code = ?, error_description = ?, updated_at = ?, "
+            + "version = version + 1, lease_owner = NULL, lease_expires_at = NULL "
+            + "WHERE id = ? AND created_at = ? AND status = '" + PaymentStatus.PROCESSING + "' AND lease_owner = ?";
+
+    private static final String MARK_ORDER_PAID = "UPDATE orders SET status = '" + OrderStatus.PAID + "', updated_at = ?, "
+            + "version = version + 1 WHERE id = ? AND created_at = ? "
+            + "AND status IN ('" + OrderStatus.CREATED + "', '" + OrderStatus.ATTEMPTED + "')";
+
+    // For payments created before V5 recorded the order's created_at; scans every partition.
+    private static final String MARK_ORDER_PAID_UNPRUNED = "UPDATE orders SET status = '" + OrderStatus.PAID + "', "
+            + "updated_at = ?, version = version + 1 WHERE id = ? "
+            + "AND status IN ('" + OrderStatus.CREATED + "', '" + OrderStatus.ATTEMPTED + "')";
+
+    public static final String ORDER_ALREADY_PAID = "ORDER_ALREADY_PAID";
+
+    // The row was just moved out of processing by this transaction, so no lease check.
+    private static final String FAIL_DUPLICATE_SUCCESS = "UPDATE payments SET status = '" + PaymentStatus.FAILED + "', "
+            + "error_code = '" + ORDER_ALREADY_PAID + "', error_description = ? WHERE id = ? AND created_at = ?";
+
+    private static final String ORDER_ALREADY_PAID_DESCRIPTION = "Order was already paid by another payment";
+
+    /**
+     * Told once per submitted transition whether it was written ({@code true}) or found the
+     * payment already out of {@code processing} or leased to another node ({@code false}).
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void written(Payment payment, boolean applied);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private PaymentEventRelay paymentEventRelay;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @Value("${gateway.settlement.batch-size:500}")
+    private int batchSize;
+
+    @Value("${gateway.settlement.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${gateway.settlement.writer-concurrency:4}")
+    private int writerConcurrency;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ScheduledExecutorService writer;
+    private Executor batchExecutor;
+    private Semaphore writerPermits;
+    private Timer committedWrites;
+    private Timer failedWrites;
+    private DistributionSummary batchSizes;
+    private EventLog.Category events;
+
+    private final ConcurrentHashMap<String, Transition> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+    private final LongAdder duplicateSuccesses = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        events = eventLog.category("settlement.write");
+        committedWrites = writeTimer("committed");
+        failedWrites = writeTimer("failed");
+        batchSizes = DistributionSummary.builder("gateway.settlement.write.batch.size")
+                .baseUnit("payments")
+                .register(meterRegistry);
+
+        // Batch writes block on JDBC; in virtual-thread mode each batch gets its own virtual
+        // thread and the permits alone bound how many connections the writer may hold.
+        writerPermits = new Semaphore(writerConcurrency);
+        batchExecutor = virtualThreads
+                ? new VirtualThreadTaskExecutor("status-batch-")
+                : Executors.newFixedThreadPool(writerConcurrency, daemonThreads("status-batch-"));
+
+        writer = Executors.newSingleThreadScheduledExecutor(daemonThreads("status-writer-"));
+        writer.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        // Drain until empty or the remaining batches keep failing.
+        for (int attempt = 0; attempt < 3 && !pending.isEmpty(); attempt++) {
+            flush();
+            if (writerPermits.tryAcquire(writerConcurrency, 10, TimeUnit.SECONDS)) {
+                writerPermits.release(writerConcurrency);
+            }
+        }
+        if (batchExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    public void submit(Payment payment, Listener listener) {
+        pending.merge(payment.getId(), new Transition(payment, listener), Transition::coalesce);
+        if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::flush);
+            } catch (RuntimeException e) {
+                // Shutting down; stop() drains what is pending.
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flush() {
+        flushRequested.set(false);
+        // Only take what is pending on entry so failed batches wait for the next tick.
+        int remaining = pending.size();
+        Iterator<Transition> iterator = pending.values().iterator();
+        while (remaining > 0 && iterator.hasNext()) {
+            List<Transition> batch = new ArrayList<>(Math.min(batchSize, remaining));
+            while (batch.size() < batchSize && remaining > 0 && iterator.hasNext()) {
+                Transition transition = iterator.next();
+                // Removed only if not coalesced with a newer transition in the meantime.
+                if (pending.remove(transition.payment.getId(), transition)) {
+                    batch.add(transition);
+                }
+                remaining--;
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            writerPermits.acquireUninterruptibly();
+            try {
+                batchExecutor.execute(() -> write(batch));
+            } catch (RuntimeException e) {
+                writerPermits.release();
+                requeue(batch);
+                return;
+            }
+        }
+    }
+
+    private void write(List<Transition> batch) {
+        long start = System.nanoTime();
+        batchSizes.record(batch.size());
+        boolean[] applied = new boolean[batch.size()];
+        List<Payment> demoted = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> rows = new ArrayList<>(batch.size());
+                for (Transition transition : batch) {
+                    Payment payment = transition.payment;
+                    rows.add(new Object[]{payment.getStatus(), payment.getErrorCode(), payment.getErrorDescription(),
+                            Timestamp.valueOf(payment.getUpdatedAt()), payment.getId(),
+                            Timestamp.valueOf(payment.getCreatedAt()), payment.getLeaseOwner()});
+                }
+                int[] counts = jdbcTemplate.batchUpdate(UPDATE, rows);
+
+                List<Payment> changed = new ArrayList<>(batch.size());
+                List<Payment> successes = new ArrayList<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    applied[i] = counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+                    if (applied[i]) {
+                        Payment payment = batch.get(i).payment;
+                        changed.add(payment);
+                        if (PaymentStatus.SUCCESS.equals(payment.getStatus())) {
+                            successes.add(payment);
+                        }
+                    }
+                }
+                if (!successes.isEmpty()) {
+                    int[] paid = markOrdersPaid(successes);
+                    List<Object[]> duplicates = new ArrayList<>();
+                    for (int i = 0; i < successes.size(); i++) {
+                        if (paid[i] == 0) {
+                            // Already paid, by an earlier row of this batch or by a committed
+                            // batch: the conditional UPDATE waits on the order's row lock and
+                            // re-checks the status, so the first success wins without a retry.
+                            Payment payment = successes.get(i);
+                            duplicates.add(new Object[]{ORDER_ALREADY_PAID_DESCRIPTION, payment.getId(),
+                                    Timestamp.valueOf(payment.getCreatedAt())});
+                            demoted.add(payment);
+                        }
+                    }
+                    if (!duplicates.isEmpty()) {
+                        jdbcTemplate.batchUpdate(FAIL_DUPLICATE_SUCCESS, duplicates);
+                        for (Payment payment : demoted) {
+                            payment.setStatus(PaymentStatus.FAILED);
+                            payment.setErrorCode(ORDER_ALREADY_PAID);
+                            payment.setErrorDescription(ORDER_ALREADY_PAID_DESCRIPTION);
+                        }
+                    }
+                }
+                // Events only for transitions that happened; they commit with the status.
+                webhookService.enqueue(changed);
+                paymentEventRelay.notifySettled(changed);
+            });
+        } catch (RuntimeException e) {
+            // Rolled back: the retried write must try the success again.
+            for (Payment payment : demoted) {
+                payment.setStatus(PaymentStatus.SUCCESS);
+                payment.setErrorCode(null);
+                payment.setErrorDescription(null);
+            }
+            failedWrites.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            writeFailures.increment();
+            logWrite("settlement.write_failed", batch.size(), 0, start);
+            requeue(batch);
+            return;
+        } finally {
+            writerPermits.release();
+        }
+        committedWrites.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        duplicateSuccesses.add(demoted.size());
+
+        int appliedCount = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Transition transition = batch.get(i);
+            if (applied[i]) {
+                written.increment();
+                appliedCount++;
+            } else {
+                conflicts.increment();
+            }
+            transition.listener.written(transition.payment, applied[i]);
+        }
+        logWrite("settlement.written", batch.size(), appliedCount, start);
+    }
+
+    /**
+     * Marks each success's order paid, returning the update counts in the order of
+     * {@code successes}.
+     */
+    private int[] markOrdersPaid(List<Payment> successes) {
+        List<Object[]> pruned = new ArrayList<>(successes.size());
+        List<Object[]> unpruned = new ArrayList<>();
+        for (Payment payment : successes) {
+            Timestamp updatedAt = Timestamp.valueOf(payment.getUpdatedAt());
+            if (payment.getOrderCreatedAt() != null) {
+                pruned.add(new Object[]{updatedAt, payment.getOrderId(), Timestamp.valueOf(payment.getOrderCreatedAt())});
+            } else {
+                unpruned.add(new Object[]{updatedAt, payment.getOrderId()});
+            }
+        }
+        int[] prunedCounts = pruned.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(MARK_ORDER_PAID, pruned);
+        int[] unprunedCounts = unpruned.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(MARK_ORDER_PAID_UNPRUNED, unpruned);
+        int[] paid = new int[successes.size()];
+        int p = 0;
+        int u = 0;
+        for (int i = 0; i < successes.size(); i++) {
+            paid[i] = successes.get(i).getOrderCreatedAt() != null ? prunedCounts[p++] : unprunedCounts[u++];
+        }
+        return paid;
+    }
+
+    private void logWrite(String event, int size, int appliedCount, long start) {
+        if (events.enabled()) {
+            events.begin(event)
+                    .field("batch", size)
+                    .field("applied", appliedCount)
+                    .latency(start)
+                    .log();
+        }
+    }
+
+    private void requeue(List<Transition> batch) {
+        for (Transition transition : batch) {
+            // A transition submitted since takes precedence but keeps this one's listener.
+            pending.merge(transition.payment.getId(), transition, (older, newer) -> newer.coalesce(older));
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    public long getWriteFailureCount() {
+        return writeFailures.sum();
+    }
+
+    public long getDuplicateSuccessCount() {
+        return duplicateSuccesses.sum();
+    }
+
+    private Timer writeTimer(String outcome) {
+        return Timer.builder("gateway.settlement.write")
+                .description("One batch of status updates, webhook events included, through commit")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Transition {
+        final Payment payment;
+        final Listener listener;
+
+        Transition(Payment payment, Listener listener) {
+            this.payment = payment;
+            this.listener = listener;
+        }
+
+        /**
+         * Keeps the newer state; both listeners hear the outcome of the write.
+         */
+        Transition coalesce(Transition newer) {
+            Listener older = listener;
+            return new Transition(newer.payment, (payment, applied) -> {
+                older.written(payment, applied);
+                newer.listener.written(payment, applied);
+            });
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.gateway.services;
+
+public class SettlementCapacityException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public SettlementCapacityException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,453 @@
+package com.gateway.services;
+
+import com.gateway.cache.ReadThroughCache;
+import com.gateway.logging.EventLog;
+import com.gateway.models.Order;
+import com.gateway.models.Payment;
+import com.gateway.models.PaymentStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulates bank settlement for processing payments once their {@code next_attempt_at} passes.
+ *
+ * Due payments are claimed from the table in batches with {@code FOR UPDATE SKIP LOCKED} and
+ * leased to this node, so any number of nodes share the work without claiming the same payment,
+ * and a payment whose node died is reclaimed by another once the lease expires. Outcomes are
+ * handed to {@link PaymentStatusWriter}, which only applies them while this node still holds
+ * the lease; a payment leaves the claimed count once its outcome is stored. Each method has
+ * its own cap on claimed payments ({@code gateway.settlement.max-claimed.<method>}) within the
+ * node-wide {@code max-claimed}, so a surge of one method cannot take every slot.
+ *
+ * New payments are refused with {@link SettlementCapacityException} while the due, unclaimed
+ * backlog across all nodes is over {@code gateway.settlement.max-backlog} or its oldest entry
+ * is more than {@code gateway.settlement.max-lag-ms} overdue. Both are sampled periodically.
+ */
+@Service
+public class SettlementEngine {
+
+    private static final String CLAIM = "UPDATE payments p SET lease_owner = ?, lease_expires_at = ? "
+            + "FROM (SELECT id, created_at, lease_owner FROM payments WHERE status = '" + PaymentStatus.PROCESSING + "' "
+            + "AND method = ? AND next_attempt_at <= ? AND (lease_expires_at IS NULL OR lease_expires_at < ?) "
+            + "ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED) due "
+            + "WHERE p.id = due.id AND p.created_at = due.created_at "
+            + "RETURNING p.id, p.order_id, p.merchant_id, p.amount, p.currency, p.method, p.vpa, p.card_network, "
+            + "p.card_last4, p.created_at, p.order_created_at, p.next_attempt_at, p.version, "
+            + "due.lease_owner AS previous_owner";
+
+    // Leases held by an earlier run of this node will never be written; free them now instead
+    // of waiting for them to expire.
+    private static final String RELEASE_PREVIOUS_RUNS = "UPDATE payments SET lease_owner = NULL, lease_expires_at = NULL "
+            + "WHERE status = '" + PaymentStatus.PROCESSING + "' AND lease_owner LIKE ? AND lease_owner <> ?";
+
+    // Processing payments written before settlement was driven from the table.
+    private static final String SCHEDULE_UNSCHEDULED = "UPDATE payments SET next_attempt_at = created_at "
+            + "WHERE status = '" + PaymentStatus.PROCESSING + "' AND next_attempt_at IS NULL";
+
+    // Walks idx_payments_due and stops after the limit, so sampling stays cheap however far
+    // behind settlement falls.
+    private static final String BACKLOG = "SELECT count(*) AS due, min(next_attempt_at) AS oldest FROM "
+            + "(SELECT next_attempt_at FROM payments WHERE status = '" + PaymentStatus.PROCESSING + "' "
+            + "AND next_attempt_at <= ? AND (lease_expires_at IS NULL OR lease_expires_at < ?) "
+            + "ORDER BY next_attempt_at LIMIT ?) backlog";
+
+    private static final String CONFLICT = "conflict";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PaymentStatusWriter paymentStatusWriter;
+
+    @Autowired
+    private PaymentEventBus paymentEventBus;
+
+    @Autowired
+    private ReadThroughCache<Payment> paymentCache;
+
+    @Autowired
+    private ReadThroughCache<Order> orderCache;
+
+    @Autowired
+    private MerchantStatsService merchantStatsService;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @Value("${gateway.settlement.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    @Value("${gateway.settlement.claim-batch-size:500}")
+    private int claimBatchSize;
+
+    @Value("${gateway.settlement.max-claimed:10000}")
+    private int maxClaimed;
+
+    @Value("${gateway.settlement.max-claimed.upi:6000}")
+    private int maxClaimedUpi;
+
+    @Value("${gateway.settlement.max-claimed.card:6000}")
+    private int maxClaimedCard;
+
+    @Value("${gateway.settlement.lease-seconds:30}")
+    private long leaseSeconds;
+
+    @Value("${gateway.settlement.max-backlog:50000}")
+    private int maxBacklog;
+
+    @Value("${gateway.settlement.max-lag-ms:30000}")
+    private long maxLagMs;
+
+    @Value("${gateway.settlement.backlog-check-interval-ms:1000}")
+    private long backlogCheckIntervalMs;
+
+    @Value("${gateway.settlement.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    private String owner;
+    private String ownerPrefix;
+    private ScheduledExecutorService poller;
+    private Map<String, Map<String, Timer>> durationTimers;
+    private Map<String, Integer> methodLimits;
+    private Timer lagTimer;
+    private EventLog.Category audit;
+    private EventLog.Category claimEvents;
+
+    private final AtomicInteger claimed = new AtomicInteger();
+    private final Map<String, AtomicInteger> claimedByMethod = Map.of("upi", new AtomicInteger(), "card", new AtomicInteger());
+    private final LongAdder settled = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder claimFailures = new LongAdder();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+    private volatile int backlog;
+    private volatile long backlogLagMillis;
+
+    @PostConstruct
+    public void start() {
+        // Stable per node (gateway.node-id) plus a per-run suffix.
+        ownerPrefix = "node-" + idGenerator.getNodeId() + "/";
+        owner = ownerPrefix + UUID.randomUUID().toString().substring(0, 8);
+
+        audit = eventLog.audit("settlement");
+        claimEvents = eventLog.category("settlement.claim");
+        durationTimers = Map.of("upi", durationTimers("upi"), "card", durationTimers("card"));
+        methodLimits = Map.of("upi", maxClaimedUpi, "card", maxClaimedCard);
+        lagTimer = Timer.builder("gateway.settlement.lag")
+                .description("Time from when a settlement was due until its outcome was stored")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        poller = Executors.newSingleThreadScheduledExecutor(daemonThreads("settlement-poller-"));
+        poller.execute(this::recover);
+        poller.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::sampleBacklog, 0, backlogCheckIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Outcomes already submitted are drained by PaymentStatusWriter on its own shutdown;
+        // anything else this node claimed is reclaimed once its lease expires.
+        poller.shutdownNow();
+    }
+
+    /**
+     * How long after creation a payment of this method is due to settle.
+     */
+    public Duration processingDelay(String method) {
+        if ("true".equals(System.getenv("TEST_MODE"))) {
+            return Duration.ofMillis(Long.parseLong(System.getenv().getOrDefault("TEST_PROCESSING_DELAY", "1000")));
+        }
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(5000, 10000));
+    }
+
+    /**
+     * Refuses a new payment while settlement is behind; the caller answers 503 with Retry-After.
+     */
+    public void checkCapacity() {
+        if (maxBacklog > 0 && backlog > maxBacklog) {
+            rejected.increment();
+            throw new SettlementCapacityException("Settlement backlog is full", retryAfterSeconds);
+        }
+        if (maxLagMs > 0 && backlogLagMillis > maxLagMs) {
+            rejected.increment();
+            throw new SettlementCapacityException("Settlement is running behind", retryAfterSeconds);
+        }
+    }
+
+    private boolean succeeds(String method) {
+        if ("true".equals(System.getenv("TEST_MODE"))) {
+            return "true".equals(System.getenv().getOrDefault("TEST_PAYMENT_SUCCESS", "true"));
+        }
+        double successRate = "upi".equals(method) ? 0.9 : 0.95;
+        return ThreadLocalRandom.current().nextDouble() < successRate;
+    }
+
+    private void recover() {
+        try {
+            recovered.add(jdbcTemplate.update(SCHEDULE_UNSCHEDULED));
+            recovered.add(jdbcTemplate.update(RELEASE_PREVIOUS_RUNS, ownerPrefix + "%", owner));
+        } catch (RuntimeException e) {
+            // Leases of earlier runs still expire on their own; unscheduled rows wait for the next start.
+            claimFailures.increment();
+        }
+    }
+
+    private void poll() {
+        try {
+            for (Map.Entry<String, Integer> limit : methodLimits.entrySet()) {
+                AtomicInteger methodClaimed = claimedByMethod.get(limit.getKey());
+                while (!poller.isShutdown()) {
+                    int capacity = Math.min(claimBatchSize,
+                            Math.min(maxClaimed - claimed.get(), limit.getValue() - methodClaimed.get()));
+                    if (capacity <= 0) {
+                        break;
+                    }
+                    List<Payment> due = claim(limit.getKey(), capacity);
+                    for (Payment payment : due) {
+                        settle(payment);
+                    }
+                    if (due.size() < capacity) {
+                        break;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // A failed claim statement leased nothing; the next poll tries again.
+            claimFailures.increment();
+        }
+    }
+
+    private void sampleBacklog() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp at = Timestamp.valueOf(now);
+            jdbcTemplate.query(BACKLOG, rs -> {
+                LocalDateTime oldest = rs.getObject("oldest", LocalDateTime.class);
+                backlog = rs.getInt("due");
+                backlogLagMillis = oldest == null ? 0 : Duration.between(oldest, now).toMillis();
+            }, at, at, Math.max(maxBacklog, 0) + 1);
+        } catch (RuntimeException e) {
+            // Keeps the last sample; a database that cannot answer fails the payment insert anyway.
+        }
+    }
+
+    private List<Payment> claim(String method, int limit) {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp at = Timestamp.valueOf(now);
+        List<Payment> due = jdbcTemplate.query(CLAIM, this::toPayment,
+                owner, Timestamp.valueOf(now.plusSeconds(leaseSeconds)), method, at, at, limit);
+        int inFlight = claimed.addAndGet(due.size());
+        claimedByMethod.get(method).addAndGet(due.size());
+        if (!due.isEmpty() && claimEvents.enabled()) {
+            claimEvents.begin("settlement.claimed")
+                    .field("lease_owner", owner)
+                    .field("method", method)
+                    .field("claimed", due.size())
+                    .field("limit", limit)
+                    .field("in_flight", inFlight)
+                    .latency(start)
+                    .log();
+        }
+        return due;
+    }
+
+    private Payment toPayment(ResultSet rs, int row) throws SQLException {
+        Payment payment = new Payment();
+        payment.setId(rs.getString("id"));
+        payment.setOrderId(rs.getString("order_id"));
+        payment.setMerchantId(rs.getObject("merchant_id", UUID.class));
+        payment.setAmount(rs.getInt("amount"));
+        payment.setCurrency(rs.getString("currency"));
+        payment.setMethod(rs.getString("method"));
+        payment.setStatus(PaymentStatus.PROCESSING);
+        payment.setVpa(rs.getString("vpa"));
+        payment.setCardNetwork(rs.getString("card_network"));
+        payment.setCardLast4(rs.getString("card_last4"));
+        payment.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        payment.setOrderCreatedAt(rs.getObject("order_created_at", LocalDateTime.class));
+        payment.setNextAttemptAt(rs.getObject("next_attempt_at", LocalDateTime.class));
+        payment.setVersion(rs.getLong("version"));
+        payment.setLeaseOwner(owner);
+        if (rs.getString("previous_owner") != null) {
+            // Its lease ran out on another node, or on an earlier run of this one.
+            recovered.increment();
+        }
+        return payment;
+    }
+
+    private void settle(Payment payment) {
+        boolean success = succeeds(payment.getMethod());
+        payment.setStatus(success ? PaymentStatus.SUCCESS : PaymentStatus.FAILED);
+        if (!success) {
+            payment.setErrorCode("PAYMENT_FAILED");
+            payment.setErrorDescription("Payment processing failed");
+        }
+        payment.setUpdatedAt(LocalDateTime.now());
+        paymentStatusWriter.submit(payment, this::settled);
+    }
+
+    private void settled(Payment payment, boolean applied) {
+        claimed.decrementAndGet();
+        claimedByMethod.get(payment.getMethod()).decrementAndGet();
+        LocalDateTime now = LocalDateTime.now();
+        long lagNanos = Duration.between(payment.getNextAttemptAt(), now).toNanos();
+        recordLag(lagNanos);
+        Duration duration = Duration.between(payment.getCreatedAt(), now);
+        durationTimers.get(payment.getMethod()).get(applied ? payment.getStatus() : CONFLICT).record(duration);
+        logSettled(payment, applied, lagNanos, duration);
+        if (!applied) {
+            // Someone else moved the payment out of processing first, or took over our lease.
+            paymentCache.invalidate(payment.getId());
+            return;
+        }
+        // Mirror the row as written: the writer bumped the version and released the lease.
+        payment.setVersion(payment.getVersion() + 1);
+        payment.setLeaseOwner(null);
+        paymentCache.put(payment.getId(), payment);
+        if (PaymentStatus.SUCCESS.equals(payment.getStatus())) {
+            // The writer marked the order paid in the same transaction.
+            orderCache.invalidate(payment.getOrderId());
+        }
+        merchantStatsService.recordSettled(payment);
+        paymentEventBus.publish(payment);
+        settled.increment();
+    }
+
+    private void logSettled(Payment payment, boolean applied, long lagNanos, Duration duration) {
+        if (audit.enabled()) {
+            audit.begin(applied ? "payment.settled" : "payment.settle_conflict")
+                    .field("payment_id", payment.getId())
+                    .field("order_id", payment.getOrderId())
+                    .field("merchant_id", payment.getMerchantId())
+                    .field("method", payment.getMethod())
+                    .field("amount", payment.getAmount())
+                    .field("status", applied ? payment.getStatus() : CONFLICT)
+                    .field("error_code", applied ? payment.getErrorCode() : null)
+                    .field("lease_owner", owner)
+                    .field("lag_ms", TimeUnit.NANOSECONDS.toMillis(lagNanos))
+                    .field("duration_ms", duration.toMillis())
+                    .log();
+        }
+    }
+
+    private void recordLag(long lagNanos) {
+        lagTimer.record(Math.max(lagNanos, 0), TimeUnit.NANOSECONDS);
+        long lag = TimeUnit.NANOSECONDS.toMillis(lagNanos);
+        lastLagMillis.set(lag);
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+    }
+
+    private Map<String, Timer> durationTimers(String method) {
+        Map<String, Timer> timers = new HashMap<>();
+        for (String outcome : new String[]{PaymentStatus.SUCCESS, PaymentStatus.FAILED, CONFLICT}) {
+            timers.put(outcome, Timer.builder("gateway.settlement.duration")
+                    .description("Time from payment creation until its settlement outcome was stored")
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        return timers;
+    }
+
+    public String getLeaseOwner() {
+        return owner;
+    }
+
+    public int getInFlight() {
+        return claimed.get();
+    }
+
+    public int getInFlight(String method) {
+        return claimedByMethod.get(method).get();
+    }
+
+    public int getPendingWrites() {
+        return paymentStatusWriter.getPendingCount();
+    }
+
+    public long getSettledCount() {
+        return settled.sum();
+    }
+
+    public long getRecoveredCount() {
+        return recovered.sum();
+    }
+
+    public long getClaimFailureCount() {
+        return claimFailures.sum();
+    }
+
+    public long getWriteFailureCount() {
+        return paymentStatusWriter.getWriteFailureCount();
+    }
+
+    public long getConflictCount() {
+        return paymentStatusWriter.getConflictCount();
+    }
+
+    public long getDuplicateSuccessCount() {
+        return paymentStatusWriter.getDuplicateSuccessCount();
+    }
+
+    public long getLastLagMillis() {
+        return lastLagMillis.get();
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis.get();
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public long getBacklogLagMillis() {
+        return backlogLagMillis;
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -2,75 +2,179 @@ package com.gateway.services;
 
 import org.springframework.stereotype.Service;
 import java.time.YearMonth;
-import java.util.regex.Pattern;
+import java.util.List;
 
 @Service
 public class ValidationService {
-    private static final Pattern VPA_PATTERN = Pattern.compile("^[a-zA-Z0-9._-]+@[a-zA-Z0-9]+$");
 
-    public boolean validateVPA(String vpa) {
-        return VPA_PATTERN.matcher(vpa).matches();
-    }
+    public static final String VISA = "visa";
+    public static final String MASTERCARD = "mastercard";
+    public static final String AMEX = "amex";
+    public static final String RUPAY = "rupay";
+    public static final String DINERS = "diners";
+    public static final String DISCOVER = "discover";
+    public static final String JCB = "jcb";
+    public static final String MAESTRO = "maestro";
+    public static final String UNKNOWN = "unknown";
+    public static final List<String> NETWORKS = List.of(VISA, MASTERCARD, AMEX, RUPAY, DINERS, DISCOVER, JCB, MAESTRO, UNKNOWN);
+
+    private static final int MIN_CARD_DIGITS = 13;
+    private static final int MAX_CARD_DIGITS = 19;
+    private static final int BIN_DIGITS = 6;
+
+    // Issuer ranges over the first six digits, sorted by lower bound and non-overlapping.
+    private static final int[] BIN_LOW = {
+            222100, 300000, 340000, 352800, 360000, 370000, 380000, 400000,
+            508500, 510000, 560000, 600000, 644000, 650000, 670000, 810000
+    };
+    private static final int[] BIN_HIGH = {
+            272099, 305999, 349999, 358999, 369999, 379999, 399999, 499999,
+            508999, 559999, 589999, 609999, 649999, 659999, 679999, 899999
+    };
+    private static final String[] BIN_NETWORK = {
+            MASTERCARD, DINERS, AMEX, JCB, DINERS, AMEX, DINERS, VISA,
+            RUPAY, MASTERCARD, MAESTRO, RUPAY, DISCOVER, RUPAY, MAESTRO, RUPAY
+    };
+
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    // Luhn value of a digit in a doubled position.
+    private static final int[] DOUBLED = {0, 2, 4, 6, 8, 1, 3, 5, 7, 9};
 
-    public boolean validateCardNumber(String cardNumber) {
-        String cleaned = cardNumber.replaceAll("[\\s-]", "");
-        
-        if (!cleaned.matches("\\d{13,19}")) {
+    public boolean validateVPA(CharSequence vpa) {
+        if (vpa == null) {
             return false;
         }
-        
-        return luhnCheck(cleaned);
+        int length = vpa.length();
+        int at = -1;
+        for (int i = 0; i < length; i++) {
+            char c = vpa.charAt(i);
+            if (c == '@') {
+                if (at >= 0) {
+                    return false;
+                }
+                at = i;
+            } else if (!isAsciiAlphanumeric(c) && (at >= 0 || (c != '.' && c != '_' && c != '-'))) {
+                // The handle after '@' is alphanumeric only; the name may also use . _ -
+                return false;
+            }
+        }
+        return at > 0 && at < length - 1;
     }
 
-    private boolean luhnCheck(String cardNumber) {
-        int sum = 0;
-        boolean isEven = false;
-        
-        for (int i = cardNumber.length() - 1; i >= 0; i--) {
-            int digit = Character.getNumericValue(cardNumber.charAt(i));
-            
-            if (isEven) {
-                digit *= 2;
-                if (digit > 9) {
-                    digit -= 9;
-                }
+    public boolean validateCardNumber(CharSequence cardNumber) {
+        return inspectCard(cardNumber) != null;
+    }
+
+    public String detectCardNetwork(CharSequence cardNumber) {
+        int bin = 0;
+        int digits = 0;
+        int length = cardNumber.length();
+        for (int i = 0; i < length && digits < BIN_DIGITS; i++) {
+            char c = cardNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                bin = bin * 10 + (c - '0');
+                digits++;
+            } else if (!isSeparator(c)) {
+                break;
             }
-            
-            sum += digit;
-            isEven = !isEven;
         }
-        
-        return (sum % 10) == 0;
+        return digits == 0 ? UNKNOWN : networkForBin(bin * POWERS_OF_TEN[BIN_DIGITS - digits]);
     }
 
-    public String detectCardNetwork(String cardNumber) {
-        String cleaned = cardNumber.replaceAll("[\\s-]", "");
-        
-        if (cleaned.startsWith("4")) return "visa";
-        if (cleaned.matches("^(51|52|53|54|55)\\d*$")) return "mastercard";
-        if (cleaned.matches("^(34|37)\\d*$")) return "amex";
-        if (cleaned.matches("^(60|65|8[1-9])\\d*$")) return "rupay";
-        
-        return "unknown";
+    /**
+     * Validates the number (separators, 13-19 digits, Luhn) and detects its network in one pass.
+     *
+     * @return the card network, {@link #UNKNOWN} for a valid number outside the BIN table, or
+     *         {@code null} if the number is invalid
+     */
+    public String inspectCard(CharSequence cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+
+        int digits = 0;
+        int bin = 0;
+        // Luhn sums with doubling applied to even and to odd digit positions respectively;
+        // which one counts depends on the total digit count, known only at the end.
+        int sumDoubleEven = 0;
+        int sumDoubleOdd = 0;
+
+        int length = cardNumber.length();
+        for (int i = 0; i < length; i++) {
+            char c = cardNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                int digit = c - '0';
+                if (digits < BIN_DIGITS) {
+                    bin = bin * 10 + digit;
+                }
+                if ((digits & 1) == 0) {
+                    sumDoubleEven += DOUBLED[digit];
+                    sumDoubleOdd += digit;
+                } else {
+                    sumDoubleEven += digit;
+                    sumDoubleOdd += DOUBLED[digit];
+                }
+                if (++digits > MAX_CARD_DIGITS) {
+                    return null;
+                }
+            } else if (!isSeparator(c)) {
+                return null;
+            }
+        }
+
+        if (digits < MIN_CARD_DIGITS) {
+            return null;
+        }
+        int sum = (digits & 1) == 0 ? sumDoubleEven : sumDoubleOdd;
+        if (sum % 10 != 0) {
+            return null;
+        }
+        return networkForBin(bin);
     }
 
     public boolean validateCardExpiry(String month, String year) {
         try {
             int m = Integer.parseInt(month);
             int y = Integer.parseInt(year);
-            
+
             if (m < 1 || m > 12) return false;
-            
+
             if (y < 100) {
                 y += 2000;
             }
-            
+
             YearMonth expiry = YearMonth.of(y, m);
             YearMonth now = YearMonth.now();
-            
+
             return !expiry.isBefore(now);
         } catch (Exception e) {
             return false;
         }
     }
+
+    private static String networkForBin(int bin) {
+        int low = 0;
+        int high = BIN_LOW.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (bin < BIN_LOW[mid]) {
+                high = mid - 1;
+            } else if (bin > BIN_HIGH[mid]) {
+                low = mid + 1;
+            } else {
+                return BIN_NETWORK[mid];
+            }
+        }
+        return UNKNOWN;
+    }
+
+    // Same set as the regex class [\s-] the validator used to strip.
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '-' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    private static boolean isAsciiAlphanumeric(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
 }
@@ -0,0 +1,254 @@
+package com.gateway.services;
+
+import com.gateway.models.Merchant;
+import com.gateway.models.WebhookEvent;
+import com.gateway.repositories.MerchantRepository;
+import com.gateway.repositories.WebhookEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers outbox events to merchant webhook URLs. Events are claimed in batches with a lease,
+ * sent asynchronously under global and per-merchant concurrency limits, signed with the
+ * merchant's API secret, and retried with exponential backoff.
+ */
+@Service
+public class WebhookDispatcher {
+
+    public static final String SIGNATURE_HEADER = "X-Gateway-Signature";
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private MerchantRepository merchantRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${gateway.webhooks.poll-interval-ms:500}")
+    private long pollIntervalMs;
+
+    @Value("${gateway.webhooks.batch-size:100}")
+    private int batchSize;
+
+    @Value("${gateway.webhooks.max-in-flight:200}")
+    private int maxInFlight;
+
+    @Value("${gateway.webhooks.max-in-flight-per-merchant:10}")
+    private int maxInFlightPerMerchant;
+
+    @Value("${gateway.webhooks.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${gateway.webhooks.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${gateway.webhooks.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${gateway.webhooks.request-timeout-ms:10000}")
+    private long requestTimeoutMs;
+
+    @Value("${gateway.webhooks.lease-seconds:60}")
+    private long leaseSeconds;
+
+    private ScheduledExecutorService poller;
+    private ExecutorService httpExecutor;
+    private HttpClient httpClient;
+    private Semaphore permits;
+    private final ConcurrentHashMap<UUID, Semaphore> merchantPermits = new ConcurrentHashMap<>();
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final AtomicLong lastLatencyMillis = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        permits = new Semaphore(maxInFlight);
+        AtomicInteger counter = new AtomicInteger();
+        httpExecutor = Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "webhook-http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(requestTimeoutMs))
+                .executor(httpExecutor)
+                .build();
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "webhook-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Undelivered events keep their lease and are picked up again once it expires.
+        poller.shutdownNow();
+        httpExecutor.shutdownNow();
+    }
+
+    private void poll() {
+        try {
+            int capacity = Math.min(batchSize, permits.availablePermits());
+            if (capacity == 0) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            List<WebhookEvent> due = transactionTemplate.execute(status -> {
+                List<WebhookEvent> events = webhookEventRepository.lockDue(now, capacity);
+                for (WebhookEvent event : events) {
+                    event.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+                }
+                return events;
+            });
+
+            Map<UUID, Merchant> merchants = new HashMap<>();
+            for (WebhookEvent event : due) {
+                Merchant merchant = merchants.computeIfAbsent(event.getMerchantId(),
+                        id -> merchantRepository.findById(id).orElse(null));
+                dispatch(event, merchant);
+            }
+        } catch (RuntimeException e) {
+            // Claimed events are retried once their lease expires.
+        }
+    }
+
+    private void dispatch(WebhookEvent event, Merchant merchant) {
+        if (merchant == null || merchant.getWebhookUrl() == null || merchant.getWebhookUrl().isBlank()) {
+            recordFailure(event, "Merchant has no webhook URL", true);
+            return;
+        }
+
+        HttpRequest request;
+        try {
+            request = buildRequest(event, merchant);
+        } catch (IllegalArgumentException e) {
+            recordFailure(event, "Invalid webhook URL: " + e.getMessage(), true);
+            return;
+        }
+
+        Semaphore merchantLimit = merchantPermits.computeIfAbsent(event.getMerchantId(),
+                id -> new Semaphore(maxInFlightPerMerchant));
+        if (!merchantLimit.tryAcquire()) {
+            webhookEventRepository.reschedule(event.getId(), LocalDateTime.now().plus(Duration.ofMillis(initialBackoffMs)));
+            return;
+        }
+        permits.acquireUninterruptibly();
+
+        long start = System.nanoTime();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    try {
+                        lastLatencyMillis.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                        if (error == null && response.statusCode() / 100 == 2) {
+                            webhookEventRepository.markDelivered(event.getId(), event.getAttempts() + 1, LocalDateTime.now());
+                            delivered.increment();
+                        } else {
+                            recordFailure(event, error != null ? error.toString() : "HTTP " + response.statusCode(), false);
+                        }
+                    } catch (RuntimeException e) {
+                        // The lease expires and the event is retried.
+                    } finally {
+                        merchantLimit.release();
+                        permits.release();
+                    }
+                });
+    }
+
+    private HttpRequest buildRequest(WebhookEvent event, Merchant merchant) {
+        long timestamp = Instant.now().getEpochSecond();
+        String signature = sign(merchant.getApiSecret(), timestamp + "." + event.getPayload());
+        return HttpRequest.newBuilder(URI.create(merchant.getWebhookUrl()))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Content-Type", "application/json")
+                .header("X-Gateway-Event", event.getEventType())
+                .header("X-Gateway-Event-Id", event.getId())
+                .header(SIGNATURE_HEADER, "t=" + timestamp + ",v1=" + signature)
+                .POST(HttpRequest.BodyPublishers.ofString(event.getPayload()))
+                .build();
+    }
+
+    private void recordFailure(WebhookEvent event, String error, boolean permanent) {
+        int attempts = event.getAttempts() + 1;
+        LocalDateTime now = LocalDateTime.now();
+        if (permanent || attempts >= maxAttempts) {
+            webhookEventRepository.markAttempted(event.getId(), "failed", attempts, null, error, now);
+            failed.increment();
+        } else {
+            webhookEventRepository.markAttempted(event.getId(), "pending", attempts, now.plus(backoff(attempts)), error, now);
+            retried.increment();
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 30));
+        // Up to 20% jitter so retries from one outage do not arrive in lockstep.
+        delay += ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+        return Duration.ofMillis(delay);
+    }
+
+    static String sign(String secret, String message) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(message.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getRetriedCount() {
+        return retried.sum();
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public long getLastLatencyMillis() {
+        return lastLatencyMillis.get();
+    }
+}
@@ -0,0 +1,82 @@
+package com.gateway.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.models.Merchant;
+import com.gateway.models.Payment;
+import com.gateway.models.WebhookEvent;
+import com.gateway.repositories.MerchantRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes payment status events to the webhook outbox. Must run in the transaction that
+ * stores the status change, so an event exists if and only if the change was committed.
+ */
+@Service
+public class WebhookService {
+
+    @Autowired
+    private MerchantRepository merchantRepository;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(List<Payment> payments) {
+        Map<UUID, Boolean> subscribed = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Payment payment : payments) {
+            boolean hasWebhook = subscribed.computeIfAbsent(payment.getMerchantId(), id -> merchantRepository.findById(id)
+                    .map(Merchant::getWebhookUrl)
+                    .filter(url -> !url.isBlank())
+                    .isPresent());
+            if (!hasWebhook) {
+                continue;
+            }
+
+            WebhookEvent event = new WebhookEvent();
+            event.setId(idGenerator.nextEventId());
+            event.setMerchantId(payment.getMerchantId());
+            event.setPaymentId(payment.getId());
+            event.setEventType("payment." + payment.getStatus());
+            event.setPayload(payload(event, payment));
+            event.setStatus("pending");
+            event.setAttempts(0);
+            event.setNextAttemptAt(now);
+            event.setCreatedAt(now);
+            event.setUpdatedAt(now);
+            entityManager.persist(event);
+        }
+    }
+
+    private String payload(WebhookEvent event, Payment payment) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", event.getId());
+        body.put("event", event.getEventType());
+        body.put("created_at", Instant.now().getEpochSecond());
+        body.put("data", Map.of("payment", payment));
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize webhook payload", e);
+        }
+    }
+}
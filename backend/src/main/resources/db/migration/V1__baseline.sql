@@ -0,0 +1,88 @@
+-- Schema as ddl-auto=update last left it. Everything is IF NOT EXISTS so a database that
+-- was managed by Hibernate is baselined by running this script (spring.flyway.baseline-version=0).
+
+CREATE TABLE IF NOT EXISTS merchants (
+    id          UUID NOT NULL PRIMARY KEY,
+    name        VARCHAR(255),
+    email       VARCHAR(255) UNIQUE,
+    api_key     VARCHAR(64) UNIQUE,
+    api_secret  VARCHAR(64),
+    webhook_url TEXT,
+    is_active   BOOLEAN DEFAULT TRUE,
+    created_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS orders (
+    id          VARCHAR(64) NOT NULL PRIMARY KEY,
+    merchant_id UUID,
+    amount      INTEGER NOT NULL,
+    currency    VARCHAR(3),
+    receipt     VARCHAR(255),
+    notes       JSONB,
+    status      VARCHAR(20),
+    created_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version     BIGINT DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS payments (
+    id                VARCHAR(64) NOT NULL PRIMARY KEY,
+    order_id          VARCHAR(64),
+    merchant_id       UUID,
+    amount            INTEGER NOT NULL,
+    currency          VARCHAR(3),
+    method            VARCHAR(20),
+    status            VARCHAR(20),
+    vpa               VARCHAR(255),
+    card_network      VARCHAR(20),
+    card_last4        VARCHAR(4),
+    error_code        VARCHAR(50),
+    error_description TEXT,
+    created_at        TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at        TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    next_attempt_at   TIMESTAMP(6),
+    lease_owner       VARCHAR(64),
+    lease_expires_at  TIMESTAMP(6),
+    version           BIGINT DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS webhook_events (
+    id              VARCHAR(64) NOT NULL PRIMARY KEY,
+    merchant_id     UUID,
+    payment_id      VARCHAR(64),
+    event_type      VARCHAR(50),
+    payload         TEXT,
+    status          VARCHAR(20),
+    attempts        INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP,
+    last_error      TEXT,
+    delivered_at    TIMESTAMP,
+    created_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Dispatcher claims: pending events in due order.
+CREATE INDEX IF NOT EXISTS idx_webhook_events_due ON webhook_events (status, next_attempt_at);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id            VARCHAR(320) NOT NULL PRIMARY KEY,
+    merchant_id   UUID,
+    status_code   INTEGER NOT NULL,
+    response_body TEXT,
+    created_at    TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS payment_stats_rollup (
+    merchant_id    UUID NOT NULL,
+    granularity    VARCHAR(8) NOT NULL,
+    bucket_start   TIMESTAMP NOT NULL,
+    method         VARCHAR(20) NOT NULL,
+    card_network   VARCHAR(20) NOT NULL,
+    created_count  BIGINT NOT NULL,
+    success_count  BIGINT NOT NULL,
+    failed_count   BIGINT NOT NULL,
+    success_volume BIGINT NOT NULL,
+    updated_at     TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (merchant_id, granularity, bucket_start, method, card_network)
+);
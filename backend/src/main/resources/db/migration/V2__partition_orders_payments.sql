@@ -0,0 +1,142 @@
+-- orders and payments become monthly range partitions on created_at.
+--
+-- A partitioned table's primary key has to include the partition key, so it is now
+-- (id, created_at); ids stay unique because IdGenerator never issues one twice. Existing rows
+-- are copied across in this transaction, which holds both tables locked until it commits:
+-- migrate a large database during a maintenance window.
+
+-- Creates the missing monthly partitions of parent from first_date's month through last_date's
+-- month, named <parent>_pYYYYMM. Returns how many it created.
+CREATE OR REPLACE FUNCTION gateway_create_monthly_partitions(parent TEXT, first_date DATE, last_date DATE)
+RETURNS INTEGER LANGUAGE plpgsql AS $$
+DECLARE
+    month_start DATE := date_trunc('month', first_date)::date;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    -- Every node runs maintenance; serialize them so two cannot create the same partition.
+    PERFORM pg_advisory_xact_lock(hashtext('gateway_partitions'));
+    WHILE month_start <= last_date LOOP
+        partition_name := parent || '_p' || to_char(month_start, 'YYYYMM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                    partition_name, parent, month_start, (month_start + INTERVAL '1 month')::date);
+            created := created + 1;
+        END IF;
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+    RETURN created;
+END $$;
+
+-- Drops the monthly partitions of parent that end on or before before_date's month starts.
+-- Returns how many it dropped.
+CREATE OR REPLACE FUNCTION gateway_drop_monthly_partitions(parent TEXT, before_date DATE)
+RETURNS INTEGER LANGUAGE plpgsql AS $$
+DECLARE
+    partition_name TEXT;
+    dropped INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('gateway_partitions'));
+    FOR partition_name IN
+        SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = parent::regclass AND c.relname ~ ('^' || parent || '_p[0-9]{6}$')
+    LOOP
+        IF to_date(right(partition_name, 6), 'YYYYMM') < date_trunc('month', before_date) THEN
+            EXECUTE format('DROP TABLE %I', partition_name);
+            dropped := dropped + 1;
+        END IF;
+    END LOOP;
+    RETURN dropped;
+END $$;
+
+-- orders
+
+ALTER TABLE orders RENAME TO orders_unpartitioned;
+ALTER TABLE orders_unpartitioned RENAME CONSTRAINT orders_pkey TO orders_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_orders_merchant_created;
+DROP INDEX IF EXISTS idx_orders_merchant_status_created;
+
+CREATE TABLE orders (
+    id          VARCHAR(64) NOT NULL,
+    merchant_id UUID,
+    amount      INTEGER NOT NULL,
+    currency    VARCHAR(3),
+    receipt     VARCHAR(255),
+    notes       JSONB,
+    status      VARCHAR(20),
+    created_at  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version     BIGINT DEFAULT 0,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+SELECT gateway_create_monthly_partitions('orders',
+        LEAST(COALESCE(MIN(created_at), now()), now())::date,
+        GREATEST(COALESCE(MAX(created_at), now()), now() + INTERVAL '3 months')::date)
+FROM orders_unpartitioned;
+
+INSERT INTO orders (id, merchant_id, amount, currency, receipt, notes, status, created_at, updated_at, version)
+SELECT id, merchant_id, amount, currency, receipt, notes, status, COALESCE(created_at, updated_at, now()),
+       updated_at, version
+FROM orders_unpartitioned;
+
+DROP TABLE orders_unpartitioned;
+
+-- Keyset listing: a merchant's rows newest first, optionally narrowed to one status.
+CREATE INDEX idx_orders_merchant_created ON orders (merchant_id, created_at, id);
+CREATE INDEX idx_orders_merchant_status_created ON orders (merchant_id, status, created_at, id);
+
+-- payments
+
+ALTER TABLE payments RENAME TO payments_unpartitioned;
+ALTER TABLE payments_unpartitioned RENAME CONSTRAINT payments_pkey TO payments_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_payments_merchant_created;
+DROP INDEX IF EXISTS idx_payments_merchant_status_created;
+DROP INDEX IF EXISTS idx_payments_due;
+
+CREATE TABLE payments (
+    id                VARCHAR(64) NOT NULL,
+    order_id          VARCHAR(64),
+    merchant_id       UUID,
+    amount            INTEGER NOT NULL,
+    currency          VARCHAR(3),
+    method            VARCHAR(20),
+    status            VARCHAR(20),
+    vpa               VARCHAR(255),
+    card_network      VARCHAR(20),
+    card_last4        VARCHAR(4),
+    error_code        VARCHAR(50),
+    error_description TEXT,
+    created_at        TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at        TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    next_attempt_at   TIMESTAMP(6),
+    lease_owner       VARCHAR(64),
+    lease_expires_at  TIMESTAMP(6),
+    version           BIGINT DEFAULT 0,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+SELECT gateway_create_monthly_partitions('payments',
+        LEAST(COALESCE(MIN(created_at), now()), now())::date,
+        GREATEST(COALESCE(MAX(created_at), now()), now() + INTERVAL '3 months')::date)
+FROM payments_unpartitioned;
+
+INSERT INTO payments (id, order_id, merchant_id, amount, currency, method, status, vpa, card_network, card_last4,
+                      error_code, error_description, created_at, updated_at, next_attempt_at, lease_owner,
+                      lease_expires_at, version)
+SELECT id, order_id, merchant_id, amount, currency, method, status, vpa, card_network, card_last4,
+       error_code, error_description, COALESCE(created_at, updated_at, now()), updated_at, next_attempt_at,
+       lease_owner, lease_expires_at, version
+FROM payments_unpartitioned;
+
+DROP TABLE payments_unpartitioned;
+
+CREATE INDEX idx_payments_merchant_created ON payments (merchant_id, created_at, id);
+CREATE INDEX idx_payments_merchant_status_created ON payments (merchant_id, status, created_at, id);
+CREATE INDEX idx_payments_order ON payments (order_id);
+-- Settlement claims: only in-flight payments, in due order. Stays small in every partition
+-- because rows leave it as soon as they settle.
+CREATE INDEX idx_payments_due ON payments (next_attempt_at) WHERE status = 'processing';
+
+ANALYZE orders;
+ANALYZE payments;
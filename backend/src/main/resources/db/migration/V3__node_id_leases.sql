@@ -0,0 +1,8 @@
+-- Node ids embedded in generated order/payment IDs (IdGenerator). A node without a configured
+-- gateway.node-id leases the lowest free id here and renews it while it runs; an expired
+-- lease may be taken over by another node.
+CREATE TABLE IF NOT EXISTS node_id_leases (
+    node_id    INTEGER NOT NULL PRIMARY KEY,
+    owner      TEXT NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
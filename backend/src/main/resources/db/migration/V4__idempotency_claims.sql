@@ -0,0 +1,7 @@
+-- Idempotency keys are claimed before the request runs: the first node to insert the row as
+-- 'pending' executes it, and every other request with the key waits for it to turn
+-- 'completed'. request_hash fingerprints the request body so a reused key with a different
+-- body can be rejected.
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS status VARCHAR(16) NOT NULL DEFAULT 'completed';
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS request_hash VARCHAR(64);
+ALTER TABLE idempotency_keys ALTER COLUMN status_code DROP NOT NULL;
@@ -0,0 +1,58 @@
+-- Follow-up to V2.
+--
+-- Key columns compare bytewise (COLLATE "C"): ids are ASCII and base62 sorts in ASCII order, so
+-- the locale's collation only made index comparisons slower. Changing the type rewrites both
+-- tables and their indexes: run it in a maintenance window on a large database.
+--
+-- The partitioned primary key (id, created_at) does not stop the same id being inserted with a
+-- different created_at. IdGenerator makes ids unique (leased node ids, V3), and each partition
+-- now also has a unique index on id alone. A duplicate id would carry the same timestamp, so it
+-- would land in the same monthly partition and be rejected there.
+--
+-- payments.order_created_at carries the order's partition key, so updates to a payment's
+-- order can be pruned to one partition.
+
+ALTER TABLE orders ALTER COLUMN id TYPE VARCHAR(64) COLLATE "C";
+ALTER TABLE payments ALTER COLUMN id TYPE VARCHAR(64) COLLATE "C";
+ALTER TABLE payments ALTER COLUMN order_id TYPE VARCHAR(64) COLLATE "C";
+
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS order_created_at TIMESTAMP;
+UPDATE payments p SET order_created_at = o.created_at FROM orders o WHERE o.id = p.order_id;
+
+-- As in V2, plus the unique index on id in every partition it creates.
+CREATE OR REPLACE FUNCTION gateway_create_monthly_partitions(parent TEXT, first_date DATE, last_date DATE)
+RETURNS INTEGER LANGUAGE plpgsql AS $$
+DECLARE
+    month_start DATE := date_trunc('month', first_date)::date;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    -- Every node runs maintenance; serialize them so two cannot create the same partition.
+    PERFORM pg_advisory_xact_lock(hashtext('gateway_partitions'));
+    WHILE month_start <= last_date LOOP
+        partition_name := parent || '_p' || to_char(month_start, 'YYYYMM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                    partition_name, parent, month_start, (month_start + INTERVAL '1 month')::date);
+            EXECUTE format('CREATE UNIQUE INDEX %I ON %I (id)', partition_name || '_id_key', partition_name);
+            created := created + 1;
+        END IF;
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+    RETURN created;
+END $$;
+
+DO $$
+DECLARE
+    partition_name TEXT;
+BEGIN
+    FOR partition_name IN
+        SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent IN ('orders'::regclass, 'payments'::regclass)
+    LOOP
+        EXECUTE format('CREATE UNIQUE INDEX IF NOT EXISTS %I ON %I (id)', partition_name || '_id_key', partition_name);
+    END LOOP;
+END $$;
+
+ANALYZE orders;
+ANALYZE payments;
@@ -0,0 +1,127 @@
+package com.gateway.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.util.ReflectionTestUtils;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks which pool {@link ReplicaReads} sends a lookup to when the lookup, like a declared
+ * Spring Data query method, starts no transaction of its own. The pools are mocked behind the
+ * same lazy proxy the application uses.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReplicaReadsTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private HikariDataSource replicaPool;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    private DataSource dataSource;
+    private ReplicaRoutingDataSource routing;
+    private Replica replica;
+    private ReplicaReads replicaReads;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replicaPool.getConnection()).thenReturn(replicaConnection);
+
+        replica = new Replica("replica-1", replicaPool, 1);
+        replica.caughtUp(System.nanoTime(), System.nanoTime());
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica), 1000, 1000, 1);
+        routing.afterPropertiesSet();
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setTargetDataSource(routing);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource = proxy;
+
+        replicaReads = new ReplicaReads();
+        ReflectionTestUtils.setField(replicaReads, "transactionManager", new DataSourceTransactionManager(dataSource));
+        replicaReads.init();
+    }
+
+    @Test
+    void findRunsLookupOnReplica() throws SQLException {
+        Optional<String> found = replicaReads.find(() -> query(Optional.of("merchant")));
+
+        assertThat(found).contains("merchant");
+        verify(replicaPool).getConnection();
+        verify(primary, never()).getConnection();
+        assertThat(routing.getReplicaReadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findRetriesMissOnPrimary() throws SQLException {
+        Optional<String> found = replicaReads.find(() -> query(Optional.empty()));
+
+        assertThat(found).isEmpty();
+        verify(replicaPool).getConnection();
+        verify(primary).getConnection();
+        assertThat(replicaReads.getPrimaryRetryCount()).isEqualTo(1);
+    }
+
+    @Test
+    void forMerchantReadsOwnWritesFromPrimary() throws SQLException {
+        UUID merchantId = UUID.randomUUID();
+        replicaReads.recordWrite(merchantId);
+
+        replicaReads.forMerchant(merchantId, () -> query(Optional.empty()));
+
+        verify(primary).getConnection();
+        verify(replicaPool, never()).getConnection();
+
+        // Once the replica has replayed past the write it serves the merchant again.
+        replica.caughtUp(System.nanoTime(), System.nanoTime());
+        replicaReads.forMerchant(merchantId, () -> query(Optional.empty()));
+
+        verify(replicaPool).getConnection();
+    }
+
+    @Test
+    void onPrimaryKeepsLookupOffReplicas() throws SQLException {
+        replicaReads.onPrimary(() -> replicaReads.find(() -> query(Optional.of("payment"))));
+
+        verify(primary).getConnection();
+        verify(replicaPool, never()).getConnection();
+    }
+
+    // Touches the connection the way a repository query does, which picks the target.
+    private <T> T query(T result) {
+        try {
+            DataSourceUtils.getConnection(dataSource).prepareStatement("SELECT 1");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+}
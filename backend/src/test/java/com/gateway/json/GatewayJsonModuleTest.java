@@ -0,0 +1,34 @@
+package com.gateway.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.dto.CreateOrderRequest;
+import com.gateway.models.Order;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GatewayJsonModuleTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new GatewayJsonModule());
+
+    @Test
+    void writesNotesBackAsTheObjectTheyCameInAs() throws Exception {
+        CreateOrderRequest request = mapper.readValue(
+                "{\"amount\":50000,\"notes\":{\"customer_name\":\"John Doe\"}}", CreateOrderRequest.class);
+        Order order = new Order();
+        order.setNotes(request.getNotes());
+
+        JsonNode json = mapper.readTree(mapper.writeValueAsString(order));
+
+        assertThat(json.get("notes").isObject()).isTrue();
+        assertThat(json.get("notes").get("customer_name").asText()).isEqualTo("John Doe");
+    }
+
+    @Test
+    void writesMissingNotesAsNull() throws Exception {
+        JsonNode json = mapper.readTree(mapper.writeValueAsString(new Order()));
+
+        assertThat(json.get("notes").isNull()).isTrue();
+    }
+}
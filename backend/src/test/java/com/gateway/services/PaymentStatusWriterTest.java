@@ -0,0 +1,182 @@
+package com.gateway.services;
+
+import com.gateway.logging.EventLog;
+import com.gateway.models.Payment;
+import com.gateway.models.PaymentStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Exercises the writer's handling of a second success on an order, with JDBC mocked to report
+ * the row counts Postgres would return.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PaymentStatusWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private WebhookService webhookService;
+
+    @Mock
+    private PaymentEventRelay paymentEventRelay;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private PaymentStatusWriter writer;
+
+    private final List<String> duplicateIds = new ArrayList<>();
+    private final Map<String, Boolean> paidOrders = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        EventLog eventLog = new EventLog();
+        ReflectionTestUtils.setField(eventLog, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(writer, "eventLog", eventLog);
+        ReflectionTestUtils.setField(writer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writer, "batchSize", 500);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(writer, "writerConcurrency", 1);
+
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        // Every payment UPDATE applies; the order UPDATE applies once per order, like the
+        // conditional status check does.
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            List<Object[]> rows = invocation.getArgument(1);
+            int[] counts = new int[rows.size()];
+            Arrays.fill(counts, 1);
+            if (sql.startsWith("UPDATE orders")) {
+                for (int i = 0; i < rows.size(); i++) {
+                    counts[i] = paidOrders.putIfAbsent((String) rows.get(i)[1], true) == null ? 1 : 0;
+                }
+            } else if (sql.contains(PaymentStatusWriter.ORDER_ALREADY_PAID)) {
+                for (Object[] row : rows) {
+                    duplicateIds.add((String) row[1]);
+                }
+            }
+            return counts;
+        });
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.stop();
+    }
+
+    @Test
+    void failsSecondSuccessOnAnAlreadyPaidOrder() throws Exception {
+        List<Payment> payments = List.of(success("pay_first", "order_1"), success("pay_second", "order_1"),
+                success("pay_other", "order_2"));
+        Map<String, Boolean> applied = new ConcurrentHashMap<>();
+        CountDownLatch written = new CountDownLatch(payments.size());
+        for (Payment payment : payments) {
+            writer.submit(payment, (result, wasApplied) -> {
+                applied.put(result.getId(), wasApplied);
+                written.countDown();
+            });
+        }
+
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(applied).hasSize(3).containsValues(true);
+        long successes = payments.stream()
+                .filter(payment -> payment.getOrderId().equals("order_1"))
+                .filter(payment -> PaymentStatus.SUCCESS.equals(payment.getStatus()))
+                .count();
+        assertThat(successes).isEqualTo(1);
+        assertThat(duplicateIds).hasSize(1);
+        Payment duplicate = payments.stream()
+                .filter(payment -> payment.getId().equals(duplicateIds.get(0)))
+                .findFirst().orElseThrow();
+        assertThat(duplicate.getOrderId()).isEqualTo("order_1");
+        assertThat(duplicate.getStatus()).isEqualTo(PaymentStatus.FAILED);
+        assertThat(duplicate.getErrorCode()).isEqualTo(PaymentStatusWriter.ORDER_ALREADY_PAID);
+        assertThat(payments.get(2).getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(writer.getDuplicateSuccessCount()).isEqualTo(1);
+    }
+
+    @Test
+    void retriesDemotedSuccessAfterRollback() throws Exception {
+        paidOrders.put("order_1", true);
+        AtomicBoolean failOnce = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (failOnce.getAndSet(false)) {
+                throw new IllegalStateException("webhook outbox unavailable");
+            }
+            return null;
+        }).when(webhookService).enqueue(anyList());
+        // The rolled-back attempt recorded its demotion; the payment must be a success again
+        // when it is retried, and be demoted again by the retry.
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            List<Object[]> rows = invocation.getArgument(1);
+            int[] counts = new int[rows.size()];
+            Arrays.fill(counts, sql.startsWith("UPDATE orders") ? 0 : 1);
+            if (sql.startsWith("UPDATE payments SET status = ?")) {
+                assertThat(rows.get(0)[0]).isEqualTo(PaymentStatus.SUCCESS);
+            }
+            return counts;
+        });
+        Payment payment = success("pay_late", "order_1");
+        CountDownLatch written = new CountDownLatch(1);
+
+        writer.submit(payment, (result, applied) -> written.countDown());
+
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(writer.getWriteFailureCount()).isEqualTo(1);
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.FAILED);
+        assertThat(payment.getErrorCode()).isEqualTo(PaymentStatusWriter.ORDER_ALREADY_PAID);
+        assertThat(writer.getDuplicateSuccessCount()).isEqualTo(1);
+    }
+
+    private static Payment success(String id, String orderId) {
+        Payment payment = new Payment();
+        payment.setId(id);
+        payment.setOrderId(orderId);
+        payment.setMerchantId(UUID.fromString("550e8400-e29b-41d4-a716-446655440000"));
+        payment.setStatus(PaymentStatus.SUCCESS);
+        payment.setCreatedAt(LocalDateTime.now().minusSeconds(5));
+        payment.setOrderCreatedAt(LocalDateTime.now().minusSeconds(10));
+        payment.setUpdatedAt(LocalDateTime.now());
+        payment.setLeaseOwner("node-test");
+        return payment;
+    }
+}
@@ -0,0 +1,235 @@
+package com.gateway.services;
+
+import com.gateway.models.Merchant;
+import com.gateway.models.WebhookEvent;
+import com.gateway.repositories.MerchantRepository;
+import com.gateway.repositories.WebhookEventRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the dispatcher against a local {@link HttpServer} standing in for a merchant endpoint,
+ * with the outbox and merchant repositories mocked.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class WebhookDispatcherTest {
+
+    private static final String SECRET = "secret_test_xyz789";
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    private static final long VERIFY_TIMEOUT_MS = 5000;
+
+    @Mock
+    private WebhookEventRepository webhookEventRepository;
+
+    @Mock
+    private MerchantRepository merchantRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private WebhookDispatcher dispatcher;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private Merchant merchant;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        merchant = new Merchant();
+        merchant.setApiSecret(SECRET);
+        merchant.setWebhookUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/webhook");
+        when(merchantRepository.findById(merchant.getId())).thenReturn(Optional.of(merchant));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        ReflectionTestUtils.setField(dispatcher, "pollIntervalMs", 20L);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 100);
+        ReflectionTestUtils.setField(dispatcher, "maxInFlight", 200);
+        ReflectionTestUtils.setField(dispatcher, "maxInFlightPerMerchant", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 8);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffMs", INITIAL_BACKOFF_MS);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMs", 3_600_000L);
+        ReflectionTestUtils.setField(dispatcher, "requestTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(dispatcher, "leaseSeconds", 60L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void signsTimestampAndPayloadWithMerchantSecret() throws Exception {
+        AtomicReference<String> signatureHeader = new AtomicReference<>();
+        AtomicReference<String> body = new AtomicReference<>();
+        server.createContext("/webhook", exchange -> {
+            signatureHeader.set(exchange.getRequestHeaders().getFirst(WebhookDispatcher.SIGNATURE_HEADER));
+            body.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        WebhookEvent event = event("evt_signed", 0);
+        dueOnce(List.of(event));
+
+        dispatcher.start();
+
+        verify(webhookEventRepository, timeout(VERIFY_TIMEOUT_MS)).markDelivered(eq("evt_signed"), eq(1), any());
+        assertThat(body.get()).isEqualTo(event.getPayload());
+        String[] parts = signatureHeader.get().split(",");
+        assertThat(parts).hasSize(2);
+        assertThat(parts[0]).startsWith("t=");
+        assertThat(parts[1]).startsWith("v1=");
+        String timestamp = parts[0].substring(2);
+        assertThat(parts[1].substring(3)).isEqualTo(hmacSha256(SECRET, timestamp + "." + body.get()));
+        assertThat(dispatcher.getDeliveredCount()).isEqualTo(1);
+    }
+
+    @Test
+    void retriesFailedDeliveryWithExponentialBackoff() {
+        server.createContext("/webhook", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        // Third attempt: backoff is initial * 2^2 plus up to 20% jitter.
+        dueOnce(List.of(event("evt_retry", 2)));
+        LocalDateTime before = LocalDateTime.now();
+
+        dispatcher.start();
+
+        ArgumentCaptor<LocalDateTime> nextAttemptAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(webhookEventRepository, timeout(VERIFY_TIMEOUT_MS)).markAttempted(eq("evt_retry"), eq("pending"), eq(3),
+                nextAttemptAt.capture(), eq("HTTP 503"), any());
+        Duration delay = Duration.between(before, nextAttemptAt.getValue());
+        assertThat(delay).isGreaterThanOrEqualTo(Duration.ofMillis(4 * INITIAL_BACKOFF_MS));
+        assertThat(delay).isLessThanOrEqualTo(Duration.ofMillis(4 * INITIAL_BACKOFF_MS * 6 / 5 + VERIFY_TIMEOUT_MS));
+        verify(webhookEventRepository, never()).markDelivered(anyString(), anyInt(), any());
+        assertThat(dispatcher.getRetriedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void marksEventFailedAfterLastAttempt() {
+        server.createContext("/webhook", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        dueOnce(List.of(event("evt_exhausted", 7)));
+
+        dispatcher.start();
+
+        verify(webhookEventRepository, timeout(VERIFY_TIMEOUT_MS)).markAttempted(eq("evt_exhausted"), eq("failed"), eq(8),
+                isNull(), eq("HTTP 500"), any());
+        assertThat(dispatcher.getFailedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void capsConcurrentDeliveriesPerMerchant() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "maxInFlightPerMerchant", 2);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        CountDownLatch arrived = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/webhook", exchange -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            arrived.countDown();
+            try {
+                release.await(VERIFY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            concurrent.decrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        List<WebhookEvent> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            events.add(event("evt_cap_" + i, 0));
+        }
+        dueOnce(events);
+
+        dispatcher.start();
+
+        assertThat(arrived.await(VERIFY_TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        // Events over the cap go back to the outbox for a later poll instead of queueing here.
+        verify(webhookEventRepository, timeout(VERIFY_TIMEOUT_MS).times(3)).reschedule(anyString(), any());
+        assertThat(dispatcher.getInFlight()).isEqualTo(2);
+        release.countDown();
+
+        verify(webhookEventRepository, timeout(VERIFY_TIMEOUT_MS).times(2)).markDelivered(anyString(), eq(1), any());
+        assertThat(maxConcurrent.get()).isEqualTo(2);
+        verify(webhookEventRepository, times(3)).reschedule(anyString(), any());
+    }
+
+    private void dueOnce(List<WebhookEvent> events) {
+        when(webhookEventRepository.lockDue(any(), anyInt())).thenReturn(events).thenReturn(List.of());
+    }
+
+    private WebhookEvent event(String id, int attempts) {
+        WebhookEvent event = new WebhookEvent();
+        event.setId(id);
+        event.setMerchantId(merchant.getId());
+        event.setPaymentId("pay_" + id);
+        event.setEventType("payment.success");
+        event.setPayload("{\"event\":\"payment.success\",\"data\":{\"payment\":{\"id\":\"pay_" + id + "\"}}}");
+        event.setAttempts(attempts);
+        return event;
+    }
+
+    private static String hmacSha256(String secret, String message) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(message.getBytes(StandardCharsets.UTF_8)));
+    }
+}